@@ -0,0 +1,46 @@
+package com.sportsstore.config;
+
+import com.sportsstore.model.User;
+import com.sportsstore.service.CartService;
+import com.sportsstore.service.UserService;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Merges the guest cart built up before login into the user's cart, then redirects home.
+ * By the time this runs the session has its post-login id, and the guest cart has followed it.
+ */
+@Component
+public class CartMergeSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+    private final UserService userService;
+    private final CartService cartService;
+
+    @Autowired
+    public CartMergeSuccessHandler(UserService userService, CartService cartService) {
+        super("/");
+        setAlwaysUseDefaultTargetUrl(true);
+        this.userService = userService;
+        this.cartService = cartService;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException, ServletException {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            User user = userService.findByUsername(authentication.getName())
+                    .orElseThrow(() -> new IllegalStateException("User not found"));
+            cartService.mergeGuestCartToUser(session.getId(), user);
+        }
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sportsstore.config;
+
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.service.CatalogService;
+import com.sportsstore.service.ProductAnalyticsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Answers conditional GETs for the storefront product pages with 304 Not Modified before
+ * the controller runs.
+ * <p>
+ * A product page's ETag comes from the product's version, its live stock level and the version of
+ * the best seller and co-purchase lists shown beside it. A listing's ETag comes from the catalog
+ * version and the request parameters. Both also cover the signed-in user and the session, because
+ * the navbar and the CSRF tokens in the page's forms differ per user, so responses are marked
+ * private.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final CatalogService catalogService;
+    private final ProductAnalyticsService productAnalyticsService;
+
+    @Autowired
+    public ConditionalGetInterceptor(CatalogService catalogService, ProductAnalyticsService productAnalyticsService) {
+        this.catalogService = catalogService;
+        this.productAnalyticsService = productAnalyticsService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        // A page showing a flash message after a redirect is not the page the client has cached
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request);
+        if (flash != null && !flash.isEmpty()) {
+            return true;
+        }
+
+        Optional<String> content = contentVersion(request);
+        Instant lastModified = catalogService.getLastModified();
+        if (content.isEmpty() || lastModified == null) {
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+
+        String etag = "\"" + DigestUtils.md5DigestAsHex(
+                (content.get() + "|" + viewer(request)).getBytes(StandardCharsets.UTF_8)) + "\"";
+        boolean notModified = new ServletWebRequest(request, response).checkNotModified(etag, lastModified.toEpochMilli());
+        return !notModified;
+    }
+
+    // What the page shows, or empty if it cannot be told without running the controller
+    private Optional<String> contentVersion(HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+
+        if (pathVariables != null && pathVariables.containsKey("id")) {
+            Long id;
+            try {
+                id = Long.valueOf(pathVariables.get("id"));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+            return catalogService.findProduct(id)
+                    .map(product -> productVersion(product) + ":sales:" + productAnalyticsService.getVersion(id));
+        }
+
+        String catalogVersion = catalogService.getCatalogVersion();
+        if (catalogVersion == null) {
+            return Optional.empty();
+        }
+        StringBuilder listing = new StringBuilder("catalog:").append(catalogVersion);
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                listing.append('&').append(name).append('=').append(String.join(",", values)));
+        return Optional.of(listing.toString());
+    }
+
+    private static String productVersion(CatalogProduct product) {
+        return "product:" + product.getId() + ":" + product.getVersion() + ":" + product.getStockQuantity()
+                + ":" + product.getCategory().getId() + ":" + product.getCategory().getName();
+    }
+
+    // The session holds the CSRF token embedded in the page's forms, and is replaced on login and logout
+    private static String viewer(HttpServletRequest request) {
+        String user = request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : "";
+        HttpSession session = request.getSession(false);
+        return user + ":" + (session != null ? session.getId() : "");
+    }
+}
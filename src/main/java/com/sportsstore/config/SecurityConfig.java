@@ -43,14 +43,16 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, CartMergeSuccessHandler loginSuccessHandler) throws Exception {
         http
                 .authenticationProvider(authenticationProvider())
                 .authorizeHttpRequests(auth -> auth
                         // Public routes
                         .requestMatchers("/", "/home", "/register", "/login", "/products/**", "/h2-console/**", "/css/**", "/js/**", "/images/**").permitAll()
+                        // Guests keep a cart of their own until they log in
+                        .requestMatchers("/cart/**", "/api/cart/**").permitAll()
                         // Authenticated routes
-                        .requestMatchers("/cart/**", "/checkout/**", "/profile/**").authenticated()
+                        .requestMatchers("/checkout/**", "/profile/**").authenticated()
                         // Admin routes
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         // All other requests require authentication
@@ -59,7 +61,7 @@ public class SecurityConfig {
                 .formLogin(form -> form
                         .loginPage("/login")
                         .loginProcessingUrl("/login")
-                        .defaultSuccessUrl("/", true)
+                        .successHandler(loginSuccessHandler)
                         .failureUrl("/login?error=true")
                         .permitAll()
                 )
@@ -1,9 +1,15 @@
 package com.sportsstore.controller;
 
 import com.sportsstore.model.Category;
+import com.sportsstore.model.OrderStatus;
 import com.sportsstore.model.Product;
 import com.sportsstore.service.CategoryService;
+import com.sportsstore.service.GuestCartSweeper;
+import com.sportsstore.service.OrderService;
+import com.sportsstore.service.ProductPage;
 import com.sportsstore.service.ProductService;
+import com.sportsstore.service.ProductSort;
+import com.sportsstore.service.SalesRollupService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -12,25 +18,94 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
 
+    private static final int PAGE_SIZE = 50;
+
     private final ProductService productService;
     private final CategoryService categoryService;
+    private final SalesRollupService salesRollupService;
+    private final OrderService orderService;
+    private final GuestCartSweeper guestCartSweeper;
 
     @Autowired
-    public AdminController(ProductService productService, CategoryService categoryService) {
+    public AdminController(ProductService productService, CategoryService categoryService,
+                           SalesRollupService salesRollupService, OrderService orderService,
+                           GuestCartSweeper guestCartSweeper) {
         this.productService = productService;
         this.categoryService = categoryService;
+        this.salesRollupService = salesRollupService;
+        this.orderService = orderService;
+        this.guestCartSweeper = guestCartSweeper;
+    }
+
+    @GetMapping("/dashboard")
+    public String showDashboard(Model model) {
+        model.addAttribute("dashboard", salesRollupService.getDashboard());
+        model.addAttribute("cartSweep", guestCartSweeper.getStats());
+        return "admin/dashboard";
+    }
+
+    @GetMapping("/orders/status")
+    public String showOrderStatusForm(Model model) {
+        model.addAttribute("statuses", OrderStatus.values());
+        return "admin/order-status";
+    }
+
+    // Takes a shipment manifest: order numbers separated by commas, spaces or new lines
+    @PostMapping("/orders/status")
+    public String updateOrderStatuses(@RequestParam OrderStatus from,
+                                      @RequestParam OrderStatus to,
+                                      @RequestParam String orderIds,
+                                      Model model) {
+        model.addAttribute("statuses", OrderStatus.values());
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+
+        List<Long> ids = new ArrayList<>();
+        for (String token : orderIds.trim().split("[\\s,]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            try {
+                ids.add(Long.valueOf(token.replaceFirst("^#", "")));
+            } catch (NumberFormatException e) {
+                model.addAttribute("orderIds", orderIds);
+                model.addAttribute("error", "Not an order number: " + token);
+                return "admin/order-status";
+            }
+        }
+
+        try {
+            model.addAttribute("change", orderService.updateOrderStatuses(ids, from, to));
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("orderIds", orderIds);
+            model.addAttribute("error", e.getMessage());
+        }
+        return "admin/order-status";
     }
 
     @GetMapping("/products")
-    public String listProducts(Model model) {
-        List<Product> products = productService.findAll();
-        model.addAttribute("products", products);
+    public String listProducts(@RequestParam(required = false) String sort,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(defaultValue = "false") boolean total,
+                               Model model) {
+        ProductSort productSort = ProductSort.fromKey(sort);
+        ProductPage<Product> page = productService.findPage(null, productSort, cursor, PAGE_SIZE);
+
+        // Counting scans the whole table, so only do it when the total is asked for
+        if (total) {
+            model.addAttribute("totalProducts", productService.countProducts(null));
+        }
+
+        model.addAttribute("products", page.getProducts());
+        model.addAttribute("page", page);
+        model.addAttribute("sort", productSort.getKey());
         return "admin/products";
     }
 
@@ -0,0 +1,83 @@
+package com.sportsstore.controller;
+
+import com.sportsstore.model.User;
+import com.sportsstore.service.CartDelta;
+import com.sportsstore.service.CartService;
+import com.sportsstore.service.UserService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * JSON counterpart of the cart form posts, used by the cart page when scripts are available.
+ * Each call applies one edit and answers with a {@link CartDelta} rather than a redirect.
+ * Edits to an existing line carry the version the page last saw; a stale version gets
+ * 409 Conflict along with the line as it now is.
+ */
+@RestController
+@RequestMapping("/api/cart")
+public class CartApiController {
+
+    private final CartService cartService;
+    private final UserService userService;
+
+    @Autowired
+    public CartApiController(CartService cartService, UserService userService) {
+        this.cartService = cartService;
+        this.userService = userService;
+    }
+
+    @PostMapping("/items")
+    public CartDelta addItem(@RequestParam Long productId,
+                             @RequestParam(defaultValue = "1") int quantity,
+                             Authentication authentication,
+                             HttpSession session) {
+        if (CartController.isLoggedIn(authentication)) {
+            return cartService.addUserLine(currentUser(authentication), productId, quantity);
+        }
+        return cartService.addGuestLine(session.getId(), productId, quantity);
+    }
+
+    @PutMapping("/items/{id}")
+    public ResponseEntity<CartDelta> updateItem(@PathVariable Long id,
+                                                @RequestParam int quantity,
+                                                @RequestParam long version,
+                                                Authentication authentication,
+                                                HttpSession session) {
+        return respond(change(id, quantity, version, authentication, session));
+    }
+
+    @DeleteMapping("/items/{id}")
+    public ResponseEntity<CartDelta> removeItem(@PathVariable Long id,
+                                                @RequestParam long version,
+                                                Authentication authentication,
+                                                HttpSession session) {
+        return respond(change(id, 0, version, authentication, session));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    private CartDelta change(Long id, int quantity, long version, Authentication authentication, HttpSession session) {
+        if (CartController.isLoggedIn(authentication)) {
+            return cartService.changeUserLine(currentUser(authentication), id, quantity, version);
+        }
+        return cartService.changeGuestLine(session.getId(), id, quantity, version);
+    }
+
+    private User currentUser(Authentication authentication) {
+        return userService.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    private static ResponseEntity<CartDelta> respond(CartDelta delta) {
+        return ResponseEntity.status(delta.conflict() ? HttpStatus.CONFLICT : HttpStatus.OK).body(delta);
+    }
+}
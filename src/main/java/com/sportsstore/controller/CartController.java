@@ -3,16 +3,17 @@ package com.sportsstore.controller;
 import com.sportsstore.model.CartItem;
 import com.sportsstore.model.User;
 import com.sportsstore.service.CartService;
+import com.sportsstore.service.GuestCartItem;
 import com.sportsstore.service.UserService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @Controller
@@ -30,22 +31,21 @@ public class CartController {
 
     @GetMapping
     public String viewCart(Authentication authentication, HttpSession session, Model model) {
-        List<CartItem> cartItems;
-
-        if (authentication != null && authentication.isAuthenticated()) {
+        if (isLoggedIn(authentication)) {
             String username = authentication.getName();
             User user = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
-            cartItems = cartService.getUserCart(user);
+            List<CartItem> cartItems = cartService.getUserCart(user);
+            model.addAttribute("cartItems", cartItems);
+            model.addAttribute("total", cartService.calculateTotal(cartItems));
+            model.addAttribute("itemCount", cartItems.stream().mapToInt(CartItem::getQuantity).sum());
         } else {
-            String sessionId = session.getId();
-            cartItems = cartService.getGuestCart(sessionId);
+            // Guest lines have the same shape for the template, keyed by product id
+            List<GuestCartItem> cartItems = cartService.getGuestCart(session.getId());
+            model.addAttribute("cartItems", cartItems);
+            model.addAttribute("total", cartService.calculateGuestTotal(cartItems));
+            model.addAttribute("itemCount", cartItems.stream().mapToInt(GuestCartItem::getQuantity).sum());
         }
-
-        BigDecimal total = cartService.calculateTotal(cartItems);
-
-        model.addAttribute("cartItems", cartItems);
-        model.addAttribute("total", total);
         return "cart";
     }
 
@@ -56,7 +56,7 @@ public class CartController {
                             HttpSession session,
                             RedirectAttributes redirectAttributes) {
         try {
-            if (authentication != null && authentication.isAuthenticated()) {
+            if (isLoggedIn(authentication)) {
                 String username = authentication.getName();
                 User user = userService.findByUsername(username)
                         .orElseThrow(() -> new RuntimeException("User not found"));
@@ -77,9 +77,15 @@ public class CartController {
     @PostMapping("/update/{id}")
     public String updateQuantity(@PathVariable Long id,
                                  @RequestParam int quantity,
+                                 Authentication authentication,
+                                 HttpSession session,
                                  RedirectAttributes redirectAttributes) {
         try {
-            cartService.updateQuantity(id, quantity);
+            if (isLoggedIn(authentication)) {
+                cartService.updateQuantity(id, quantity);
+            } else {
+                cartService.updateGuestQuantity(session.getId(), id, quantity);
+            }
             redirectAttributes.addFlashAttribute("success", "Cart updated");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Failed to update cart: " + e.getMessage());
@@ -89,9 +95,14 @@ public class CartController {
     }
 
     @PostMapping("/remove/{id}")
-    public String removeItem(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+    public String removeItem(@PathVariable Long id, Authentication authentication, HttpSession session,
+                             RedirectAttributes redirectAttributes) {
         try {
-            cartService.removeItem(id);
+            if (isLoggedIn(authentication)) {
+                cartService.removeItem(id);
+            } else {
+                cartService.removeFromGuestCart(session.getId(), id);
+            }
             redirectAttributes.addFlashAttribute("success", "Item removed from cart");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Failed to remove item: " + e.getMessage());
@@ -99,4 +110,10 @@ public class CartController {
 
         return "redirect:/cart";
     }
+
+    // Anonymous visitors carry an authentication too, so the type matters as well
+    static boolean isLoggedIn(Authentication authentication) {
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
 }
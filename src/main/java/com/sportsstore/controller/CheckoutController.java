@@ -1,9 +1,12 @@
 package com.sportsstore.controller;
 
 import com.sportsstore.model.CartItem;
+import com.sportsstore.model.Money;
 import com.sportsstore.model.Order;
 import com.sportsstore.model.User;
 import com.sportsstore.service.CartService;
+import com.sportsstore.service.CheckoutIdempotencyService;
+import com.sportsstore.service.InventoryReservationService;
 import com.sportsstore.service.OrderService;
 import com.sportsstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,11 +16,12 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Controller
 public class CheckoutController {
@@ -25,12 +29,18 @@ public class CheckoutController {
     private final CartService cartService;
     private final OrderService orderService;
     private final UserService userService;
+    private final InventoryReservationService inventoryReservationService;
+    private final CheckoutIdempotencyService checkoutIdempotencyService;
 
     @Autowired
-    public CheckoutController(CartService cartService, OrderService orderService, UserService userService) {
+    public CheckoutController(CartService cartService, OrderService orderService, UserService userService,
+                              InventoryReservationService inventoryReservationService,
+                              CheckoutIdempotencyService checkoutIdempotencyService) {
         this.cartService = cartService;
         this.orderService = orderService;
         this.userService = userService;
+        this.inventoryReservationService = inventoryReservationService;
+        this.checkoutIdempotencyService = checkoutIdempotencyService;
     }
 
     @GetMapping("/checkout")
@@ -51,11 +61,19 @@ public class CheckoutController {
             return "redirect:/cart";
         }
 
-        BigDecimal total = cartService.calculateTotal(cartItems);
+        // Hold the stock while the shopper fills in the form
+        if (!inventoryReservationService.hold(user.getId(), cartService.getQuantitiesByProduct(cartItems))) {
+            redirectAttributes.addFlashAttribute("error", "Some items in your cart are no longer available");
+            return "redirect:/cart";
+        }
+
+        Money total = cartService.calculateTotal(cartItems);
 
         model.addAttribute("cartItems", cartItems);
+        model.addAttribute("holdMinutes", inventoryReservationService.getHoldTtl().toMinutes());
         model.addAttribute("total", total);
         model.addAttribute("user", user);
+        model.addAttribute("idempotencyKey", checkoutIdempotencyService.newKey());
         return "checkout";
     }
 
@@ -63,6 +81,8 @@ public class CheckoutController {
     public String processCheckout(@RequestParam String shippingAddress,
                                    @RequestParam String shippingCity,
                                    @RequestParam String shippingZip,
+                                   @RequestParam(required = false) String idempotencyKey,
+                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKeyHeader,
                                    Authentication authentication,
                                    RedirectAttributes redirectAttributes) {
         try {
@@ -70,6 +90,14 @@ public class CheckoutController {
             User user = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
+            // A repeated submission gets the order the first one placed; its cart is already empty
+            String key = idempotencyKeyHeader != null ? idempotencyKeyHeader : idempotencyKey;
+            Optional<Long> placedOrderId = checkoutIdempotencyService.findOrderId(key, user.getId());
+            if (placedOrderId.isPresent()) {
+                redirectAttributes.addFlashAttribute("success", "Order placed successfully!");
+                return "redirect:/order-confirmation/" + placedOrderId.get();
+            }
+
             List<CartItem> cartItems = cartService.getUserCart(user);
 
             if (cartItems.isEmpty()) {
@@ -77,10 +105,11 @@ public class CheckoutController {
                 return "redirect:/cart";
             }
 
-            Order order = orderService.createOrder(user, cartItems, shippingAddress, shippingCity, shippingZip);
+            Long orderId = checkoutIdempotencyService.placeOnce(key, user.getId(), () ->
+                    orderService.createOrder(user, cartItems, shippingAddress, shippingCity, shippingZip, key));
 
             redirectAttributes.addFlashAttribute("success", "Order placed successfully!");
-            return "redirect:/order-confirmation/" + order.getId();
+            return "redirect:/order-confirmation/" + orderId;
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Checkout failed: " + e.getMessage());
             return "redirect:/checkout";
@@ -89,18 +118,10 @@ public class CheckoutController {
 
     @GetMapping("/order-confirmation/{id}")
     public String orderConfirmation(@PathVariable Long id, Authentication authentication, Model model) {
-        String username = authentication.getName();
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Order order = orderService.findById(id)
+        // Only finds the order if it belongs to the current user
+        Order order = orderService.findPlacedOrder(id, authentication.getName())
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
-        // Security check: ensure order belongs to current user
-        if (!order.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized access to order");
-        }
-
         model.addAttribute("order", order);
         return "order-confirmation";
     }
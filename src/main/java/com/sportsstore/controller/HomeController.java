@@ -1,7 +1,7 @@
 package com.sportsstore.controller;
 
-import com.sportsstore.model.Product;
-import com.sportsstore.service.ProductService;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.service.FeaturedProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,20 +12,16 @@ import java.util.List;
 @Controller
 public class HomeController {
 
-    private final ProductService productService;
+    private final FeaturedProductService featuredProductService;
 
     @Autowired
-    public HomeController(ProductService productService) {
-        this.productService = productService;
+    public HomeController(FeaturedProductService featuredProductService) {
+        this.featuredProductService = featuredProductService;
     }
 
     @GetMapping({"/", "/home"})
     public String home(Model model) {
-        List<Product> featuredProducts = productService.findInStock();
-        // Limit to 8 featured products
-        if (featuredProducts.size() > 8) {
-            featuredProducts = featuredProducts.subList(0, 8);
-        }
+        List<CatalogProduct> featuredProducts = featuredProductService.getFeaturedProducts();
         model.addAttribute("featuredProducts", featuredProducts);
         return "index";
     }
@@ -1,16 +1,24 @@
 package com.sportsstore.controller;
 
-import com.sportsstore.model.Category;
-import com.sportsstore.model.Product;
-import com.sportsstore.service.CategoryService;
-import com.sportsstore.service.ProductService;
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.service.CatalogService;
+import com.sportsstore.service.PriceRange;
+import com.sportsstore.service.ProductFilter;
+import com.sportsstore.service.ProductAnalyticsService;
+import com.sportsstore.service.ProductPage;
+import com.sportsstore.service.ProductSort;
+import com.sportsstore.service.Suggestion;
+import com.sportsstore.service.SuggestionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.List;
 
@@ -18,43 +26,78 @@ import java.util.List;
 @RequestMapping("/products")
 public class ProductController {
 
-    private final ProductService productService;
-    private final CategoryService categoryService;
+    private static final int PAGE_SIZE = 24;
+
+    private final CatalogService catalogService;
+    private final SuggestionIndex suggestionIndex;
+    private final ProductAnalyticsService productAnalyticsService;
 
     @Autowired
-    public ProductController(ProductService productService, CategoryService categoryService) {
-        this.productService = productService;
-        this.categoryService = categoryService;
+    public ProductController(CatalogService catalogService, SuggestionIndex suggestionIndex,
+                             ProductAnalyticsService productAnalyticsService) {
+        this.catalogService = catalogService;
+        this.suggestionIndex = suggestionIndex;
+        this.productAnalyticsService = productAnalyticsService;
     }
 
     @GetMapping
     public String listProducts(@RequestParam(required = false) Long categoryId,
+                               @RequestParam(required = false) String price,
+                               @RequestParam(defaultValue = "false") boolean inStock,
                                @RequestParam(required = false) String search,
+                               @RequestParam(required = false) String sort,
+                               @RequestParam(required = false) String cursor,
                                Model model) {
-        List<Product> products;
-        List<Category> categories = categoryService.findAll();
+        List<CatalogProduct> products;
+        List<CatalogCategory> categories = catalogService.getCategories();
+        ProductSort productSort = ProductSort.fromKey(sort);
 
         if (search != null && !search.trim().isEmpty()) {
-            products = productService.searchProducts(search);
+            // Search results are ranked by relevance and capped, so they are not paginated
+            products = catalogService.searchProducts(search);
             model.addAttribute("search", search);
-        } else if (categoryId != null) {
-            products = productService.findByCategoryId(categoryId);
-            model.addAttribute("selectedCategoryId", categoryId);
         } else {
-            products = productService.findAll();
+            // Filtering, sorting, paging and facet counts are all answered by the catalog snapshot
+            PriceRange priceRange = PriceRange.fromKey(price);
+            ProductFilter filter = new ProductFilter(categoryId, priceRange, inStock);
+            ProductPage<CatalogProduct> page = catalogService.findPage(filter, productSort, cursor, PAGE_SIZE);
+            products = page.getProducts();
+            model.addAttribute("page", page);
+            model.addAttribute("facets", catalogService.countFacets(filter));
+            model.addAttribute("priceRanges", PriceRange.values());
+            model.addAttribute("inStock", inStock);
+            if (categoryId != null) {
+                model.addAttribute("selectedCategoryId", categoryId);
+            }
+            if (priceRange != null) {
+                model.addAttribute("selectedPrice", priceRange.getKey());
+            }
         }
 
         model.addAttribute("products", products);
         model.addAttribute("categories", categories);
+        model.addAttribute("sort", productSort.getKey());
         return "products";
     }
 
+    // Type-ahead for the search box; answered from memory on every keystroke
+    @GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public List<Suggestion> suggest(@RequestParam(defaultValue = "") String q) {
+        return suggestionIndex.suggest(q);
+    }
+
     @GetMapping("/{id}")
     public String productDetail(@PathVariable Long id, Model model) {
-        Product product = productService.findById(id)
+        CatalogProduct product = catalogService.findProduct(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         model.addAttribute("product", product);
+        model.addAttribute("boughtTogether", productAnalyticsService.getBoughtTogether(id));
+        model.addAttribute("bestSellers", productAnalyticsService.getBestSellers().stream()
+                .filter(bestSeller -> !bestSeller.getId().equals(id))
+                .toList());
+        model.addAttribute("bestSellerDays", productAnalyticsService.getWindow().toDays());
         return "product-detail";
     }
 }
@@ -1,11 +1,9 @@
 package com.sportsstore.controller;
 
-import com.sportsstore.model.Order;
 import com.sportsstore.model.User;
-import com.sportsstore.service.CartService;
+import com.sportsstore.service.OrderHistoryPage;
 import com.sportsstore.service.OrderService;
 import com.sportsstore.service.UserService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -15,22 +13,21 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
-
 @Controller
 public class UserController {
 
+    private static final int ORDER_PAGE_SIZE = 10;
+
     private final UserService userService;
     private final OrderService orderService;
-    private final CartService cartService;
 
     @Autowired
-    public UserController(UserService userService, OrderService orderService, CartService cartService) {
+    public UserController(UserService userService, OrderService orderService) {
         this.userService = userService;
         this.orderService = orderService;
-        this.cartService = cartService;
     }
 
     @GetMapping("/register")
@@ -77,28 +74,17 @@ public class UserController {
     }
 
     @GetMapping("/profile")
-    public String showProfile(Authentication authentication, Model model) {
+    public String showProfile(@RequestParam(required = false) String cursor,
+                              Authentication authentication, Model model) {
         String username = authentication.getName();
         User user = userService.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<Order> orders = orderService.findUserOrders(user);
+        OrderHistoryPage page = orderService.findOrderHistory(user, cursor, ORDER_PAGE_SIZE);
 
         model.addAttribute("user", user);
-        model.addAttribute("orders", orders);
+        model.addAttribute("orders", page.getOrders());
+        model.addAttribute("page", page);
         return "profile";
     }
-
-    @PostMapping("/login-success")
-    public String handleLoginSuccess(Authentication authentication, HttpSession session) {
-        String username = authentication.getName();
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // Merge guest cart with user cart
-        String sessionId = session.getId();
-        cartService.mergeGuestCartToUser(sessionId, user);
-
-        return "redirect:/";
-    }
 }
@@ -0,0 +1,129 @@
+package com.sportsstore.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An old, finished order moved out of the {@code orders} table by the archival job. Rows are
+ * written by the job in SQL and never changed afterwards; {@link #toOrder()} turns one back into
+ * the shape of a live order for pages that show both.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = @Index(name = "idx_orders_archive_user_date", columnList = "user_id, order_date"))
+public class ArchivedOrder {
+
+    // Keeps the id the order had while it was live
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+
+    @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OrderStatus status;
+
+    @Column(name = "shipping_address", nullable = false)
+    private String shippingAddress;
+
+    @Column(name = "shipping_city", nullable = false)
+    private String shippingCity;
+
+    @Column(name = "shipping_zip", nullable = false)
+    private String shippingZip;
+
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    @Lob
+    @Convert(converter = OrderSnapshotConverter.class)
+    @Column(name = "snapshot")
+    private OrderSnapshot snapshot;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @OneToMany(mappedBy = "order")
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    // Constructors
+    protected ArchivedOrder() {
+    }
+
+    /**
+     * Returns a detached copy of this order as a live {@link Order}, carrying its snapshot but
+     * not its items. The copy is for display only and must not be saved.
+     */
+    public Order toOrder() {
+        Order order = new Order(user, totalAmount, shippingAddress, shippingCity, shippingZip);
+        order.setId(id);
+        order.setOrderDate(orderDate);
+        order.setStatus(status);
+        order.setIdempotencyKey(idempotencyKey);
+        order.setRolledUp(true);
+        order.setSnapshot(snapshot);
+        return order;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public Money getTotalAmount() {
+        return totalAmount;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public String getShippingCity() {
+        return shippingCity;
+    }
+
+    public String getShippingZip() {
+        return shippingZip;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public OrderSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public List<ArchivedOrderItem> getItems() {
+        return items;
+    }
+}
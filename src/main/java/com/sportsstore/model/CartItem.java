@@ -3,9 +3,17 @@ package com.sportsstore.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items",
+       uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_user_product", columnNames = {"user_id", "product_id"}),
+       indexes = {
+           @Index(name = "idx_cart_items_session", columnList = "session_id"),
+           @Index(name = "idx_cart_items_last_touched", columnList = "last_touched")
+       })
 public class CartItem {
 
     @Id
@@ -28,6 +36,23 @@ public class CartItem {
     @JoinColumn(name = "user_id")
     private User user;
 
+    // Bumped on every change, so the cart API can turn away edits made against a stale line
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // When the line was last written; guest lines untouched for long enough are swept away
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "last_touched", nullable = false)
+    private LocalDateTime lastTouched;
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        lastTouched = LocalDateTime.now();
+    }
+
     // Constructors
     public CartItem() {
     }
@@ -84,4 +109,12 @@ public class CartItem {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getLastTouched() {
+        return lastTouched;
+    }
 }
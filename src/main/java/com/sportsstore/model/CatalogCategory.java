@@ -0,0 +1,33 @@
+package com.sportsstore.model;
+
+/**
+ * Immutable, read-only copy of a {@link Category} held in the in-memory catalog snapshot.
+ */
+public final class CatalogCategory {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+
+    public CatalogCategory(Long id, String name, String description) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+    }
+
+    public static CatalogCategory from(Category category) {
+        return new CatalogCategory(category.getId(), category.getName(), category.getDescription());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,84 @@
+package com.sportsstore.model;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable, read-only copy of a {@link Product} held in the in-memory catalog snapshot.
+ * Exposes the same properties as the entity so the storefront templates can render either.
+ * The stock level is read from a shared counter so that checkouts do not have to
+ * republish the snapshot.
+ */
+public final class CatalogProduct {
+
+    private final long id;
+    private final long version;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final long priceMinorUnits;
+    private final String imageUrl;
+    private final CatalogCategory category;
+    private final boolean featured;
+    private final AtomicInteger stock;
+
+    public CatalogProduct(long id, long version, String name, String description, BigDecimal price, String imageUrl,
+                          CatalogCategory category, boolean featured, AtomicInteger stock) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.priceMinorUnits = Money.minorUnitsOf(price);
+        this.imageUrl = imageUrl;
+        this.category = category;
+        this.featured = featured;
+        this.stock = stock;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    // The entity version this copy was taken from
+    public long getVersion() {
+        return version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    // The price in cents, worked out once so cart totals need no decimal arithmetic
+    public long getPriceMinorUnits() {
+        return priceMinorUnits;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public CatalogCategory getCategory() {
+        return category;
+    }
+
+    public boolean isFeatured() {
+        return featured;
+    }
+
+    public Integer getStockQuantity() {
+        return stock.get();
+    }
+
+    public boolean isInStock() {
+        return stock.get() > 0;
+    }
+}
@@ -3,13 +3,18 @@ package com.sportsstore.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import java.math.BigDecimal;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_date", columnList = "user_id, order_date"),
+        @Index(name = "idx_orders_rolled_up", columnList = "rolled_up, id"),
+        @Index(name = "idx_orders_status_date", columnList = "status, order_date")
+})
 public class Order {
 
     @Id
@@ -26,10 +31,12 @@ public class Order {
 
     @NotNull(message = "Total amount is required")
     @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
-    private BigDecimal totalAmount;
+    @Convert(converter = MoneyConverter.class)
+    private Money totalAmount;
 
-    @Column(nullable = false)
-    private String status = "PENDING";
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OrderStatus status = OrderStatus.PENDING;
 
     @NotBlank(message = "Shipping address is required")
     @Column(name = "shipping_address", nullable = false)
@@ -43,9 +50,24 @@ public class Order {
     @Column(name = "shipping_zip", nullable = false)
     private String shippingZip;
 
+    // Sent with the checkout form so a repeated submission finds this order instead of placing another
+    @Column(name = "idempotency_key", unique = true, length = 64)
+    private String idempotencyKey;
+
+    // Set once the order is counted in the sales rollups, so the backfill never counts it twice
+    @ColumnDefault("false")
+    @Column(name = "rolled_up", nullable = false)
+    private boolean rolledUp;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems = new ArrayList<>();
 
+    // The items as placed; order pages read this instead of the items and their products
+    @Lob
+    @Convert(converter = OrderSnapshotConverter.class)
+    @Column(name = "snapshot")
+    private OrderSnapshot snapshot;
+
     @PrePersist
     protected void onCreate() {
         orderDate = LocalDateTime.now();
@@ -55,7 +77,7 @@ public class Order {
     public Order() {
     }
 
-    public Order(User user, BigDecimal totalAmount, String shippingAddress, String shippingCity, String shippingZip) {
+    public Order(User user, Money totalAmount, String shippingAddress, String shippingCity, String shippingZip) {
         this.user = user;
         this.totalAmount = totalAmount;
         this.shippingAddress = shippingAddress;
@@ -88,22 +110,46 @@ public class Order {
         this.orderDate = orderDate;
     }
 
-    public BigDecimal getTotalAmount() {
+    public Money getTotalAmount() {
         return totalAmount;
     }
 
-    public void setTotalAmount(BigDecimal totalAmount) {
+    public void setTotalAmount(Money totalAmount) {
         this.totalAmount = totalAmount;
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public OrderSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(OrderSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public boolean isRolledUp() {
+        return rolledUp;
+    }
+
+    public void setRolledUp(boolean rolledUp) {
+        this.rolledUp = rolledUp;
+    }
+
     public String getShippingAddress() {
         return shippingAddress;
     }
@@ -3,7 +3,6 @@ package com.sportsstore.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
-import java.math.BigDecimal;
 
 @Entity
 @Table(name = "order_items")
@@ -29,13 +28,14 @@ public class OrderItem {
 
     @NotNull(message = "Price at purchase is required")
     @Column(name = "price_at_purchase", nullable = false, precision = 10, scale = 2)
-    private BigDecimal priceAtPurchase;
+    @Convert(converter = MoneyConverter.class)
+    private Money priceAtPurchase;
 
     // Constructors
     public OrderItem() {
     }
 
-    public OrderItem(Order order, Product product, Integer quantity, BigDecimal priceAtPurchase) {
+    public OrderItem(Order order, Product product, Integer quantity, Money priceAtPurchase) {
         this.order = order;
         this.product = product;
         this.quantity = quantity;
@@ -75,15 +75,15 @@ public class OrderItem {
         this.quantity = quantity;
     }
 
-    public BigDecimal getPriceAtPurchase() {
+    public Money getPriceAtPurchase() {
         return priceAtPurchase;
     }
 
-    public void setPriceAtPurchase(BigDecimal priceAtPurchase) {
+    public void setPriceAtPurchase(Money priceAtPurchase) {
         this.priceAtPurchase = priceAtPurchase;
     }
 
-    public BigDecimal getSubtotal() {
-        return priceAtPurchase.multiply(BigDecimal.valueOf(quantity));
+    public Money getSubtotal() {
+        return priceAtPurchase.times(quantity);
     }
 }
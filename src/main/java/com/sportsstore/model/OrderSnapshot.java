@@ -0,0 +1,51 @@
+package com.sportsstore.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The lines of an order as they were at checkout, with product names and prices copied in.
+ * Built once when the order is placed and stored with the order row, so order pages show
+ * the items without loading order items or products, and later product edits do not change
+ * what the customer bought.
+ */
+@Immutable
+public final class OrderSnapshot {
+
+    public record Item(Long productId, String productName, BigDecimal unitPrice, int quantity) {
+
+        public BigDecimal subtotal() {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    private final List<Item> items;
+
+    @JsonCreator
+    public OrderSnapshot(@JsonProperty("items") List<Item> items) {
+        this.items = List.copyOf(items);
+    }
+
+    public static OrderSnapshot of(Collection<OrderItem> orderItems) {
+        return new OrderSnapshot(orderItems.stream()
+                .map(item -> new Item(item.getProduct().getId(), item.getProduct().getName(),
+                        item.getPriceAtPurchase().getAmount(), item.getQuantity()))
+                .toList());
+    }
+
+    public static OrderSnapshot ofArchived(Collection<ArchivedOrderItem> archivedItems) {
+        return new OrderSnapshot(archivedItems.stream()
+                .map(item -> new Item(item.getProduct().getId(), item.getProduct().getName(),
+                        item.getPriceAtPurchase().getAmount(), item.getQuantity()))
+                .toList());
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,40 @@
+package com.sportsstore.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an {@link OrderSnapshot} as JSON text.
+ */
+@Converter
+public class OrderSnapshotConverter implements AttributeConverter<OrderSnapshot, String> {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    @Override
+    public String convertToDatabaseColumn(OrderSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write order snapshot", e);
+        }
+    }
+
+    @Override
+    public OrderSnapshot convertToEntityAttribute(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, OrderSnapshot.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read order snapshot", e);
+        }
+    }
+}
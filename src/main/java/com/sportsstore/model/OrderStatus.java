@@ -0,0 +1,33 @@
+package com.sportsstore.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lifecycle of an order. An order moves forward one step at a time and can be cancelled until it
+ * has shipped; delivered and cancelled orders do not change again.
+ */
+public enum OrderStatus {
+    PENDING,
+    CONFIRMED,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    public Set<OrderStatus> nextStatuses() {
+        switch (this) {
+            case PENDING:
+                return EnumSet.of(CONFIRMED, CANCELLED);
+            case CONFIRMED:
+                return EnumSet.of(SHIPPED, CANCELLED);
+            case SHIPPED:
+                return EnumSet.of(DELIVERED);
+            default:
+                return EnumSet.noneOf(OrderStatus.class);
+        }
+    }
+
+    public boolean canMoveTo(OrderStatus next) {
+        return nextStatuses().contains(next);
+    }
+}
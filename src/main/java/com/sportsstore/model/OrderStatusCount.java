@@ -0,0 +1,46 @@
+package com.sportsstore.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Rollup row holding the number of orders currently in one status. Kept up to date by
+ * {@code SalesRollupService} as orders are placed and change status.
+ */
+@Entity
+@Table(name = "order_status_counts")
+public class OrderStatusCount {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private OrderStatus status;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    // Constructors
+    public OrderStatusCount() {
+    }
+
+    public OrderStatusCount(OrderStatus status, long orderCount) {
+        this.status = status;
+        this.orderCount = orderCount;
+    }
+
+    // Getters and Setters
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+}
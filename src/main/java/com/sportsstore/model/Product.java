@@ -2,9 +2,12 @@ package com.sportsstore.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.math.BigDecimal;
 
 @Entity
@@ -24,6 +27,7 @@ public class Product {
 
     @NotNull(message = "Price is required")
     @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
+    @Digits(integer = 8, fraction = 2, message = "Price must be in whole cents and below 100,000,000")
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
@@ -38,6 +42,17 @@ public class Product {
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
+    // Pinned by an admin to the featured products on the home page
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean featured = false;
+
+    // Bumped on every update; used for optimistic locking and as the product's cache validator
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Constructors
     public Product() {
     }
@@ -107,4 +122,20 @@ public class Product {
     public void setCategory(Category category) {
         this.category = category;
     }
+
+    public boolean isFeatured() {
+        return featured;
+    }
+
+    public void setFeatured(boolean featured) {
+        this.featured = featured;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,32 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.ArchivedOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads of archived orders, mirroring the live order queries. Orders are moved here by
+ * {@link OrderArchiveRepository}.
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long>, OrderArchiveRepository {
+
+    Window<ArchivedOrder> findByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+
+    Optional<ArchivedOrder> findByIdAndUserUsername(Long id, String username);
+
+    // Orders archived before snapshots were stored with them
+    List<ArchivedOrder> findBySnapshotIsNullOrderById(Limit limit);
+
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    List<ArchivedOrder> findWithItemsByIdIn(Collection<Long> ids);
+}
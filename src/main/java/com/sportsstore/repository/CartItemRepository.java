@@ -4,13 +4,19 @@ import com.sportsstore.model.CartItem;
 import com.sportsstore.model.Product;
 import com.sportsstore.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Guest carts live in memory and are written here through {@link GuestCartRepository}.
+ */
 @Repository
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, GuestCartRepository {
 
     List<CartItem> findBySessionId(String sessionId);
 
@@ -20,6 +26,23 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     Optional<CartItem> findByUserAndProduct(User user, Product product);
 
+    Optional<CartItem> findByIdAndUser(Long id, User user);
+
+    @Query("SELECT COALESCE(SUM(c.quantity), 0) AS itemCount, COALESCE(SUM(c.product.price * c.quantity), 0) AS total " +
+           "FROM CartItem c WHERE c.user = :user")
+    CartSummary summarizeUserCart(@Param("user") User user);
+
+    // Versioned edits for the cart API; they change nothing and return 0 if the line has moved on
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CartItem c SET c.quantity = :quantity, c.version = c.version + 1, c.lastTouched = CURRENT_TIMESTAMP " +
+           "WHERE c.id = :id AND c.user = :user AND c.version = :version")
+    int updateQuantity(@Param("id") Long id, @Param("user") User user,
+                       @Param("quantity") int quantity, @Param("version") long version);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM CartItem c WHERE c.id = :id AND c.user = :user AND c.version = :version")
+    int deleteLine(@Param("id") Long id, @Param("user") User user, @Param("version") long version);
+
     void deleteBySessionId(String sessionId);
 
     void deleteByUser(User user);
@@ -0,0 +1,13 @@
+package com.sportsstore.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a user's cart summed in the database: units and total price.
+ */
+public interface CartSummary {
+
+    Long getItemCount();
+
+    BigDecimal getTotal();
+}
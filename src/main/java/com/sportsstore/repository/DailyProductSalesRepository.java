@@ -0,0 +1,33 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.DailyProductSales;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Dashboard totals summed from the daily product rollups; increments come from
+ * {@link SalesRollupRepository}.
+ */
+@Repository
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSales, Long>, SalesRollupRepository {
+
+    @Query("SELECT s.salesDate AS salesDate, SUM(s.units) AS units, SUM(s.revenue) AS revenue " +
+           "FROM DailyProductSales s WHERE s.salesDate >= :since GROUP BY s.salesDate ORDER BY s.salesDate")
+    List<DailySalesTotal> sumByDaySince(@Param("since") LocalDate since);
+
+    @Query("SELECT s.categoryId AS id, SUM(s.units) AS units, SUM(s.revenue) AS revenue " +
+           "FROM DailyProductSales s WHERE s.salesDate >= :since GROUP BY s.categoryId " +
+           "HAVING SUM(s.units) > 0 ORDER BY SUM(s.revenue) DESC")
+    List<SalesTotal> sumByCategorySince(@Param("since") LocalDate since);
+
+    @Query("SELECT s.productId AS id, SUM(s.units) AS units, SUM(s.revenue) AS revenue " +
+           "FROM DailyProductSales s WHERE s.salesDate >= :since GROUP BY s.productId " +
+           "HAVING SUM(s.units) > 0 ORDER BY SUM(s.units) DESC, s.productId")
+    List<SalesTotal> findTopProductsSince(@Param("since") LocalDate since, Limit limit);
+}
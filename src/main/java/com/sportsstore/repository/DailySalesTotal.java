@@ -0,0 +1,16 @@
+package com.sportsstore.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projection of summed sales rollups for one day.
+ */
+public interface DailySalesTotal {
+
+    LocalDate getSalesDate();
+
+    Long getUnits();
+
+    BigDecimal getRevenue();
+}
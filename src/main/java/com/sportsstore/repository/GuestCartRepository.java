@@ -0,0 +1,55 @@
+package com.sportsstore.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes guest carts held in memory to {@code cart_items}, and merges them into a user's cart
+ * on login, as plain JDBC statements. Also clears out guest rows once their session is over.
+ */
+public interface GuestCartRepository {
+
+    record GuestRow(long id, String sessionId) {
+    }
+
+    /**
+     * Replaces the rows of a guest cart with the given product quantities. Rows written under
+     * {@code previousSessionId} are dropped too, for carts whose session id has changed since.
+     * Products that no longer exist are skipped.
+     */
+    void replaceGuestCart(String previousSessionId, String sessionId, Map<Long, Integer> quantities);
+
+    /**
+     * Moves a guest cart's rows into the user's cart in one statement, adding to the quantity of
+     * products the user already has, then deletes what is left of the guest cart.
+     *
+     * @return the number of user cart lines added or updated
+     */
+    int mergeGuestCart(String sessionId, long userId);
+
+    /**
+     * Deletes every row written under the given session id.
+     *
+     * @return the number of rows deleted
+     */
+    int deleteGuestCart(String sessionId);
+
+    /**
+     * Returns up to {@code limit} guest rows last written before {@code touchedBefore}, oldest first.
+     */
+    List<GuestRow> findStaleGuestRows(LocalDateTime touchedBefore, int limit);
+
+    /**
+     * Deletes the rows with the given ids.
+     *
+     * @return the number of rows deleted
+     */
+    int deleteRows(Collection<Long> ids);
+
+    /**
+     * Marks the rows with the given ids as written now.
+     */
+    void touchRows(Collection<Long> ids);
+}
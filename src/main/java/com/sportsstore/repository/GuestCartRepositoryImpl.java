@@ -0,0 +1,88 @@
+package com.sportsstore.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class GuestCartRepositoryImpl implements GuestCartRepository {
+
+    // Relies on the (user_id, product_id) unique constraint: at most one matching row per product
+    private static final String MERGE_SQL =
+            "MERGE INTO cart_items c " +
+            "USING (SELECT product_id, SUM(quantity) AS quantity FROM cart_items " +
+            "WHERE session_id = ? GROUP BY product_id) g " +
+            "ON c.user_id = ? AND c.product_id = g.product_id " +
+            "WHEN MATCHED THEN UPDATE SET quantity = c.quantity + g.quantity, version = c.version + 1, " +
+            "last_touched = CURRENT_TIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT (product_id, quantity, user_id) VALUES (g.product_id, g.quantity, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GuestCartRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void replaceGuestCart(String previousSessionId, String sessionId, Map<Long, Integer> quantities) {
+        if (previousSessionId != null && !previousSessionId.equals(sessionId)) {
+            deleteGuestCart(previousSessionId);
+        }
+        deleteGuestCart(sessionId);
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> rows.add(new Object[]{quantity, sessionId, productId}));
+        jdbcTemplate.batchUpdate("INSERT INTO cart_items (product_id, quantity, session_id) " +
+                "SELECT id, ?, ? FROM products WHERE id = ?", rows);
+    }
+
+    @Override
+    public int mergeGuestCart(String sessionId, long userId) {
+        int merged = jdbcTemplate.update(MERGE_SQL, sessionId, userId, userId);
+        deleteGuestCart(sessionId);
+        return merged;
+    }
+
+    @Override
+    public int deleteGuestCart(String sessionId) {
+        return jdbcTemplate.update("DELETE FROM cart_items WHERE session_id = ?", sessionId);
+    }
+
+    @Override
+    public List<GuestRow> findStaleGuestRows(LocalDateTime touchedBefore, int limit) {
+        return jdbcTemplate.query("SELECT id, session_id FROM cart_items " +
+                        "WHERE session_id IS NOT NULL AND last_touched < ? ORDER BY last_touched LIMIT ?",
+                (row, rowNum) -> new GuestRow(row.getLong("id"), row.getString("session_id")),
+                touchedBefore, limit);
+    }
+
+    @Override
+    public int deleteRows(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM cart_items WHERE id IN (" + placeholders(ids) + ")", ids.toArray());
+    }
+
+    @Override
+    public void touchRows(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE cart_items SET last_touched = CURRENT_TIMESTAMP WHERE id IN (" + placeholders(ids) + ")",
+                ids.toArray());
+    }
+
+    private static String placeholders(Collection<?> values) {
+        return String.join(", ", Collections.nCopies(values.size(), "?"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderSnapshot;
+import com.sportsstore.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Moves orders and their items from the live tables to the archive tables in SQL, without
+ * loading them as entities.
+ */
+public interface OrderArchiveRepository {
+
+    /**
+     * Locks up to {@code limit} rolled-up orders in one of {@code statuses} that were placed
+     * before {@code placedBefore}, copies them and their items to the archive and deletes them
+     * from the live tables. Must run in a transaction.
+     *
+     * @return the number of orders archived
+     */
+    int archiveOrders(Collection<OrderStatus> statuses, LocalDateTime placedBefore, int limit);
+
+    /**
+     * Stores snapshots for archived orders that have none, the only change ever made to an
+     * archived order. Orders that already have a snapshot are left as they are.
+     */
+    void fillArchivedSnapshots(Map<Long, OrderSnapshot> snapshotsByOrderId);
+}
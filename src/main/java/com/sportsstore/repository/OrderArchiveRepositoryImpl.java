@@ -0,0 +1,72 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderSnapshot;
+import com.sportsstore.model.OrderSnapshotConverter;
+import com.sportsstore.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class OrderArchiveRepositoryImpl implements OrderArchiveRepository {
+
+    private static final String ORDER_COLUMNS =
+            "id, user_id, order_date, total_amount, status, shipping_address, shipping_city, shipping_zip, idempotency_key, snapshot";
+    private static final String ITEM_COLUMNS = "id, order_id, product_id, quantity, price_at_purchase";
+
+    private static final OrderSnapshotConverter SNAPSHOT_CONVERTER = new OrderSnapshotConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OrderArchiveRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int archiveOrders(Collection<OrderStatus> statuses, LocalDateTime placedBefore, int limit) {
+        List<Object> args = new ArrayList<>();
+        statuses.forEach(status -> args.add(status.name()));
+        args.add(Timestamp.valueOf(placedBefore));
+        args.add(limit);
+        // Locked in id order, as bulk status changes do, so the two never deadlock
+        List<Long> orderIds = jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE status IN (" + placeholders(statuses) + ") AND order_date < ? " +
+                "AND rolled_up = TRUE ORDER BY id LIMIT ? FOR UPDATE",
+                Long.class, args.toArray());
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        String inOrders = "(" + placeholders(orderIds) + ")";
+        Object[] ids = orderIds.toArray();
+        List<Object> archiveArgs = new ArrayList<>(orderIds.size() + 1);
+        archiveArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+        archiveArgs.addAll(orderIds);
+
+        jdbcTemplate.update("INSERT INTO orders_archive (" + ORDER_COLUMNS + ", archived_at) " +
+                "SELECT " + ORDER_COLUMNS + ", ? FROM orders WHERE id IN " + inOrders, archiveArgs.toArray());
+        jdbcTemplate.update("INSERT INTO order_items_archive (" + ITEM_COLUMNS + ") " +
+                "SELECT " + ITEM_COLUMNS + " FROM order_items WHERE order_id IN " + inOrders, ids);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN " + inOrders, ids);
+        return jdbcTemplate.update("DELETE FROM orders WHERE id IN " + inOrders, ids);
+    }
+
+    @Override
+    public void fillArchivedSnapshots(Map<Long, OrderSnapshot> snapshotsByOrderId) {
+        List<Object[]> batchArgs = new ArrayList<>(snapshotsByOrderId.size());
+        snapshotsByOrderId.forEach((orderId, snapshot) ->
+                batchArgs.add(new Object[] {SNAPSHOT_CONVERTER.convertToDatabaseColumn(snapshot), orderId}));
+        jdbcTemplate.batchUpdate("UPDATE orders_archive SET snapshot = ? WHERE id = ? AND snapshot IS NULL", batchArgs);
+    }
+
+    private static String placeholders(Collection<?> values) {
+        return String.join(", ", Collections.nCopies(values.size(), "?"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    /**
+     * Locks the oldest pending events that are due. A lock timeout of -2 makes Hibernate add
+     * SKIP LOCKED where the database supports it, so concurrent dispatchers pass over each
+     * other's rows; the embedded H2 gets a plain FOR UPDATE and a second dispatcher waits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OrderEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now " +
+           "ORDER BY e.nextAttemptAt, e.id")
+    List<OrderEvent> findDueForUpdate(@Param("status") OrderEvent.Status status, @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+
+    long countByStatus(OrderEvent.Status status);
+
+    // Oldest first, so each purge batch takes the longest-delivered events
+    @Query("SELECT e.id FROM OrderEvent e WHERE e.status = :status AND e.deliveredAt < :before ORDER BY e.id")
+    List<Long> findIdsDeliveredBefore(@Param("status") OrderEvent.Status status, @Param("before") LocalDateTime before,
+                                      Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OrderEvent e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,19 @@
+package com.sportsstore.repository;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Streams every order line ever placed, live and archived, without loading entities.
+ */
+public interface OrderLineRepository {
+
+    record OrderLine(long orderId, LocalDateTime orderDate, long productId, int quantity) {
+    }
+
+    /**
+     * Passes each order line to {@code consumer}, grouped by order in id order. Rows are read
+     * as the result set is walked, so memory use does not grow with the order history.
+     */
+    void forEachOrderLine(Consumer<OrderLine> consumer);
+}
@@ -0,0 +1,32 @@
+package com.sportsstore.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.Consumer;
+
+public class OrderLineRepositoryImpl implements OrderLineRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OrderLineRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    public void forEachOrderLine(Consumer<OrderLine> consumer) {
+        jdbcTemplate.query(
+                "SELECT o.id, o.order_date, i.product_id, i.quantity FROM orders o JOIN order_items i ON i.order_id = o.id " +
+                "UNION ALL " +
+                "SELECT o.id, o.order_date, i.product_id, i.quantity FROM orders_archive o JOIN order_items_archive i ON i.order_id = o.id " +
+                "ORDER BY 1",
+                row -> {
+                    consumer.accept(new OrderLine(row.getLong(1), row.getTimestamp(2).toLocalDateTime(),
+                            row.getLong(3), row.getInt(4)));
+                });
+    }
+}
@@ -1,16 +1,67 @@
 package com.sportsstore.repository;
 
 import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderSnapshot;
+import com.sportsstore.model.OrderStatus;
 import com.sportsstore.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Bulk status changes come from {@link OrderStatusRepository}; a streaming read of every order
+ * line from {@link OrderLineRepository}.
+ */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderStatusRepository, OrderLineRepository {
 
     List<Order> findByUserOrderByOrderDateDesc(User user);
 
-    List<Order> findByStatus(String status);
+    // Keyset pagination over one customer's orders; does not issue a COUNT query
+    Window<Order> findByUser(User user, ScrollPosition position, Sort sort, Limit limit);
+
+    // Fills in the items and their products for a page of orders in one statement
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+    List<Order> findByStatus(OrderStatus status);
+
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    // Reads the order row only, joined to its owner so other customers' orders are not found
+    Optional<Order> findByIdAndUserUsername(Long id, String username);
+
+    // Serialises status changes to one order, so the rollup counts move exactly once per change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Order> findForUpdateById(Long id);
+
+    // Orders not yet in the sales rollups, locked so their status cannot change while they are counted
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Order> findByRolledUpFalseOrderById(Limit limit);
+
+    // Orders placed before snapshots were stored with them
+    List<Order> findBySnapshotIsNullOrderById(Limit limit);
+
+    // Only fills in a missing snapshot, so the rest of a row that may be changing meanwhile is left alone
+    @Modifying
+    @Query("UPDATE Order o SET o.snapshot = :snapshot WHERE o.id = :id AND o.snapshot IS NULL")
+    int fillSnapshot(@Param("id") Long id, @Param("snapshot") OrderSnapshot snapshot);
+
+    @Query("SELECT oi.product.id AS productId, oi.quantity AS quantity, o.orderDate AS orderDate " +
+           "FROM OrderItem oi JOIN oi.order o WHERE o.orderDate >= :since")
+    List<ProductSale> findSalesSince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,10 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderStatus;
+import com.sportsstore.model.OrderStatusCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderStatusCountRepository extends JpaRepository<OrderStatusCount, OrderStatus> {
+}
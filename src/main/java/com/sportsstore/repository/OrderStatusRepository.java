@@ -0,0 +1,28 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderStatus;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Set-based status changes that bypass the entity manager, so a batch of orders is moved with
+ * one statement instead of one load and update per order.
+ */
+public interface OrderStatusRepository {
+
+    record StatusRow(OrderStatus status, boolean rolledUp) {
+    }
+
+    /**
+     * Locks the orders that exist among {@code orderIds} and returns their current status.
+     */
+    Map<Long, StatusRow> lockStatuses(Collection<Long> orderIds);
+
+    /**
+     * Moves the orders among {@code orderIds} that are still in {@code from} to {@code to}.
+     *
+     * @return the number of orders moved
+     */
+    int moveStatus(Collection<Long> orderIds, OrderStatus from, OrderStatus to);
+}
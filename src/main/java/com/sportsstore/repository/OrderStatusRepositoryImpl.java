@@ -0,0 +1,54 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OrderStatusRepositoryImpl implements OrderStatusRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OrderStatusRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<Long, StatusRow> lockStatuses(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, StatusRow> statuses = new HashMap<>();
+        jdbcTemplate.query("SELECT id, status, rolled_up FROM orders WHERE id IN (" + placeholders(orderIds) + ") FOR UPDATE",
+                row -> {
+                    statuses.put(row.getLong("id"),
+                            new StatusRow(OrderStatus.valueOf(row.getString("status")), row.getBoolean("rolled_up")));
+                },
+                orderIds.toArray());
+        return statuses;
+    }
+
+    @Override
+    public int moveStatus(Collection<Long> orderIds, OrderStatus from, OrderStatus to) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(orderIds.size() + 2);
+        args.add(to.name());
+        args.add(from.name());
+        args.addAll(orderIds);
+        return jdbcTemplate.update("UPDATE orders SET status = ? WHERE status = ? AND id IN (" + placeholders(orderIds) + ")",
+                args.toArray());
+    }
+
+    private static String placeholders(Collection<?> values) {
+        return String.join(", ", Collections.nCopies(values.size(), "?"));
+    }
+}
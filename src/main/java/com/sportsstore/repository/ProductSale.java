@@ -0,0 +1,15 @@
+package com.sportsstore.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of one order line: which product sold, how many, and when.
+ */
+public interface ProductSale {
+
+    Long getProductId();
+
+    Integer getQuantity();
+
+    LocalDateTime getOrderDate();
+}
@@ -0,0 +1,33 @@
+package com.sportsstore.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock updates that bypass the entity manager so they can be checked and applied by the
+ * database in a single statement per product.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Takes each quantity out of stock in one JDBC batch. A product is only reduced if it has
+     * enough left, so concurrent callers can never take stock below zero.
+     *
+     * @return the ids of products that did not have enough stock; the other products in the
+     *         batch have still been reduced, so the caller must roll back if this is not empty
+     */
+    List<Long> reduceStock(Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Returns each product's stock with the row version it was read at. Every stock change
+     * bumps the version, so it orders the levels read by concurrent transactions.
+     */
+    Map<Long, StockLevel> findStockLevels(Collection<Long> productIds);
+
+    /**
+     * Returns the stock of up to {@code limit} products with ids above {@code afterId}, in id
+     * order, so the whole table can be walked one batch at a time.
+     */
+    Map<Long, Integer> findStockQuantitiesAfter(long afterId, int limit);
+}
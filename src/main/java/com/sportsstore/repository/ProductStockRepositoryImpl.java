@@ -0,0 +1,74 @@
+package com.sportsstore.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    // The version is bumped so an admin form opened before the sale cannot write back the old stock level
+    private static final String REDUCE_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, version = version + 1 " +
+            "WHERE id = ? AND stock_quantity >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> reduceStock(Map<Long, Integer> quantitiesByProductId) {
+        List<Long> productIds = new ArrayList<>(quantitiesByProductId.size());
+        List<Object[]> batchArgs = new ArrayList<>(quantitiesByProductId.size());
+        for (Map.Entry<Long, Integer> entry : quantitiesByProductId.entrySet()) {
+            productIds.add(entry.getKey());
+            batchArgs.add(new Object[] {entry.getValue(), entry.getKey(), entry.getValue()});
+        }
+
+        int[] rowCounts = jdbcTemplate.batchUpdate(REDUCE_STOCK_SQL, batchArgs);
+
+        List<Long> shortProductIds = new ArrayList<>();
+        for (int i = 0; i < rowCounts.length; i++) {
+            if (rowCounts[i] == 0) {
+                shortProductIds.add(productIds.get(i));
+            }
+        }
+        return shortProductIds;
+    }
+
+    @Override
+    public Map<Long, StockLevel> findStockLevels(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, StockLevel> stockLevels = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_quantity, version FROM products WHERE id IN (" + placeholders + ")",
+                row -> {
+                    stockLevels.put(row.getLong("id"),
+                            new StockLevel(row.getInt("stock_quantity"), row.getLong("version")));
+                },
+                productIds.toArray());
+        return stockLevels;
+    }
+
+    @Override
+    public Map<Long, Integer> findStockQuantitiesAfter(long afterId, int limit) {
+        Map<Long, Integer> stockQuantities = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, stock_quantity FROM products WHERE id > ? ORDER BY id LIMIT ?",
+                row -> {
+                    stockQuantities.put(row.getLong("id"), row.getInt("stock_quantity"));
+                },
+                afterId, limit);
+        return stockQuantities;
+    }
+}
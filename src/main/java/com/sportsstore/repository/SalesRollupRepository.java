@@ -0,0 +1,35 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Increments to the sales rollup tables. Each row is changed with a single {@code MERGE} that
+ * adds to the row, or inserts it if it does not exist yet, so concurrent orders add to the same
+ * row without reading it first.
+ */
+public interface SalesRollupRepository {
+
+    record Sale(LocalDate salesDate, Long productId, Long categoryId, long units, BigDecimal revenue) {
+    }
+
+    /**
+     * Adds each delta, which may be negative, to the order count of its status.
+     */
+    void addOrderCounts(Map<OrderStatus, Long> deltasByStatus);
+
+    /**
+     * Adds each sale to the row for its day and product.
+     */
+    void addProductSales(Collection<Sale> sales);
+
+    /**
+     * Sums the lines of the given orders into one sale per day and product, in key order.
+     */
+    List<Sale> sumOrderSales(Collection<Long> orderIds);
+}
@@ -0,0 +1,77 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class SalesRollupRepositoryImpl implements SalesRollupRepository {
+
+    // One statement per row, so a row another transaction inserts concurrently is never a duplicate key
+    private static final String ADD_ORDER_COUNT_SQL =
+            "MERGE INTO order_status_counts c " +
+            "USING (SELECT CAST(? AS VARCHAR(16)) AS status, CAST(? AS BIGINT) AS delta) d " +
+            "ON c.status = d.status " +
+            "WHEN MATCHED THEN UPDATE SET order_count = c.order_count + d.delta " +
+            "WHEN NOT MATCHED THEN INSERT (status, order_count) VALUES (d.status, d.delta)";
+    private static final String ADD_PRODUCT_SALES_SQL =
+            "MERGE INTO daily_product_sales s " +
+            "USING (SELECT CAST(? AS DATE) AS sales_date, CAST(? AS BIGINT) AS product_id, " +
+            "CAST(? AS BIGINT) AS category_id, CAST(? AS BIGINT) AS units, CAST(? AS DECIMAL(14, 2)) AS revenue) d " +
+            "ON s.sales_date = d.sales_date AND s.product_id = d.product_id " +
+            "WHEN MATCHED THEN UPDATE SET units = s.units + d.units, revenue = s.revenue + d.revenue " +
+            "WHEN NOT MATCHED THEN INSERT (sales_date, product_id, category_id, units, revenue) " +
+            "VALUES (d.sales_date, d.product_id, d.category_id, d.units, d.revenue)";
+
+    private static final String SUM_ORDER_SALES_SQL =
+            "SELECT CAST(o.order_date AS DATE) AS sales_date, i.product_id, p.category_id, " +
+            "SUM(i.quantity) AS units, SUM(i.price_at_purchase * i.quantity) AS revenue " +
+            "FROM orders o JOIN order_items i ON i.order_id = o.id JOIN products p ON p.id = i.product_id " +
+            "WHERE o.id IN (%s) " +
+            "GROUP BY CAST(o.order_date AS DATE), i.product_id, p.category_id " +
+            "ORDER BY sales_date, i.product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SalesRollupRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addOrderCounts(Map<OrderStatus, Long> deltasByStatus) {
+        List<Object[]> batchArgs = new ArrayList<>(deltasByStatus.size());
+        for (Map.Entry<OrderStatus, Long> entry : deltasByStatus.entrySet()) {
+            batchArgs.add(new Object[] {entry.getKey().name(), entry.getValue()});
+        }
+        jdbcTemplate.batchUpdate(ADD_ORDER_COUNT_SQL, batchArgs);
+    }
+
+    @Override
+    public void addProductSales(Collection<Sale> sales) {
+        List<Object[]> batchArgs = new ArrayList<>(sales.size());
+        for (Sale sale : sales) {
+            batchArgs.add(new Object[] {Date.valueOf(sale.salesDate()), sale.productId(), sale.categoryId(),
+                    sale.units(), sale.revenue()});
+        }
+        jdbcTemplate.batchUpdate(ADD_PRODUCT_SALES_SQL, batchArgs);
+    }
+
+    @Override
+    public List<Sale> sumOrderSales(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        return jdbcTemplate.query(String.format(SUM_ORDER_SALES_SQL, placeholders),
+                (row, rowNum) -> new Sale(row.getDate("sales_date").toLocalDate(), row.getLong("product_id"),
+                        row.getLong("category_id"), row.getLong("units"), row.getBigDecimal("revenue")),
+                orderIds.toArray());
+    }
+}
@@ -0,0 +1,15 @@
+package com.sportsstore.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of summed sales rollups for one product or category.
+ */
+public interface SalesTotal {
+
+    Long getId();
+
+    Long getUnits();
+
+    BigDecimal getRevenue();
+}
@@ -0,0 +1,8 @@
+package com.sportsstore.repository;
+
+/**
+ * A product's stock quantity together with the row version it was read at, so readers can
+ * tell which of two stock levels is the newer one.
+ */
+public record StockLevel(int quantity, long version) {
+}
@@ -0,0 +1,18 @@
+package com.sportsstore.service;
+
+import java.math.BigDecimal;
+
+/**
+ * What a cart API call changed: the one line it touched, or the id of the line it removed,
+ * plus the cart's new total and item count. A conflict carries the line as it currently is,
+ * so the page can show that instead of the edit that lost.
+ */
+public record CartDelta(Line line, Long removedId, BigDecimal total, long itemCount, boolean conflict) {
+
+    /**
+     * A cart line as the page shows it. The id is the cart item id for signed-in users and
+     * the product id for guests, as on the cart page.
+     */
+    public record Line(Long id, Long productId, int quantity, BigDecimal subtotal, long version) {
+    }
+}
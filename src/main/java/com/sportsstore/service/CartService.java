@@ -1,16 +1,22 @@
 package com.sportsstore.service;
 
 import com.sportsstore.model.CartItem;
+import com.sportsstore.model.Money;
 import com.sportsstore.model.Product;
 import com.sportsstore.model.User;
 import com.sportsstore.repository.CartItemRepository;
+import com.sportsstore.repository.CartSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -18,32 +24,55 @@ public class CartService {
 
     private final CartItemRepository cartItemRepository;
     private final ProductService productService;
+    private final CatalogService catalogService;
+    private final GuestCartStore guestCartStore;
 
     @Autowired
-    public CartService(CartItemRepository cartItemRepository, ProductService productService) {
+    public CartService(CartItemRepository cartItemRepository, ProductService productService,
+                       CatalogService catalogService, GuestCartStore guestCartStore) {
         this.cartItemRepository = cartItemRepository;
         this.productService = productService;
+        this.catalogService = catalogService;
+        this.guestCartStore = guestCartStore;
     }
 
-    // Guest cart methods (session-based)
-    public List<CartItem> getGuestCart(String sessionId) {
-        return cartItemRepository.findBySessionId(sessionId);
+    // Guest cart methods (session-based); answered from memory and the catalog snapshot, so
+    // they run outside a transaction and never touch the database
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<GuestCartItem> getGuestCart(String sessionId) {
+        GuestCart cart = guestCartStore.find(sessionId);
+        return cart == null ? Collections.emptyList() : itemsOf(cart);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void addToGuestCart(String sessionId, Long productId, int quantity) {
-        Product product = productService.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        if (catalogService.findProduct(productId).isEmpty()) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        guestCartStore.update(sessionId, true, cart -> {
+            cart.add(productId, quantity);
+            return null;
+        });
+    }
 
-        Optional<CartItem> existingItem = cartItemRepository.findBySessionIdAndProduct(sessionId, product);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void updateGuestQuantity(String sessionId, Long productId, int quantity) {
+        if (!guestCartStore.update(sessionId, false, cart -> cart != null && cart.update(productId, quantity))) {
+            throw new IllegalArgumentException("Cart item not found");
+        }
+    }
 
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + quantity);
-            cartItemRepository.save(item);
-        } else {
-            CartItem newItem = new CartItem(product, quantity, sessionId);
-            cartItemRepository.save(newItem);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void removeFromGuestCart(String sessionId, Long productId) {
+        updateGuestQuantity(sessionId, productId, 0);
+    }
+
+    public Money calculateGuestTotal(List<GuestCartItem> items) {
+        long total = 0;
+        for (GuestCartItem item : items) {
+            total = Math.addExact(total, Math.multiplyExact(item.getProduct().getPriceMinorUnits(), item.getQuantity()));
         }
+        return Money.ofMinor(total);
     }
 
     // User cart methods (authenticated)
@@ -51,19 +80,20 @@ public class CartService {
         return cartItemRepository.findByUser(user);
     }
 
-    public void addToUserCart(User user, Long productId, int quantity) {
+    public CartItem addToUserCart(User user, Long productId, int quantity) {
         Product product = productService.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found"));
 
         Optional<CartItem> existingItem = cartItemRepository.findByUserAndProduct(user, product);
 
+        // Flushed, so the returned item carries its new version
         if (existingItem.isPresent()) {
             CartItem item = existingItem.get();
             item.setQuantity(item.getQuantity() + quantity);
-            cartItemRepository.save(item);
+            return cartItemRepository.saveAndFlush(item);
         } else {
             CartItem newItem = new CartItem(product, quantity, user);
-            cartItemRepository.save(newItem);
+            return cartItemRepository.saveAndFlush(newItem);
         }
     }
 
@@ -87,42 +117,135 @@ public class CartService {
 
     // Clear cart
     public void clearGuestCart(String sessionId) {
-        cartItemRepository.deleteBySessionId(sessionId);
+        String persistedSessionId = guestCartStore.discard(sessionId);
+        if (persistedSessionId != null) {
+            cartItemRepository.deleteBySessionId(persistedSessionId);
+        }
     }
 
     public void clearUserCart(User user) {
         cartItemRepository.deleteByUser(user);
     }
 
-    // Merge guest cart to user cart on login
-    public void mergeGuestCartToUser(String sessionId, User user) {
-        List<CartItem> guestItems = cartItemRepository.findBySessionId(sessionId);
+    // Merge guest cart to user cart on login, summing quantities of products in both
+    public int mergeGuestCartToUser(String sessionId, User user) {
+        guestCartStore.moveToDatabase(sessionId);
+        return cartItemRepository.mergeGuestCart(sessionId, user.getId());
+    }
+
+    // Cart API: each edit reports back only the line it touched and the new cart totals
+
+    public CartDelta addUserLine(User user, Long productId, int quantity) {
+        checkPositive(quantity);
+        CartItem item = addToUserCart(user, productId, quantity);
+        return userDelta(user, Optional.of(item), item.getId(), false);
+    }
+
+    /**
+     * Sets the quantity of one of the user's cart lines, or removes it when the quantity is not
+     * positive, provided the line is still at {@code version}. Otherwise nothing changes and the
+     * delta is marked as a conflict.
+     */
+    public CartDelta changeUserLine(User user, Long cartItemId, int quantity, long version) {
+        int changed = quantity > 0
+                ? cartItemRepository.updateQuantity(cartItemId, user, quantity, version)
+                : cartItemRepository.deleteLine(cartItemId, user, version);
+        Optional<CartItem> item = cartItemRepository.findByIdAndUser(cartItemId, user);
+        // Removing a line that is already gone is not a conflict
+        boolean conflict = changed == 0 && !(quantity <= 0 && item.isEmpty());
+        return userDelta(user, item, cartItemId, conflict);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CartDelta addGuestLine(String sessionId, Long productId, int quantity) {
+        checkPositive(quantity);
+        if (catalogService.findProduct(productId).isEmpty()) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        return guestCartStore.update(sessionId, true, cart -> {
+            cart.add(productId, quantity);
+            return guestDelta(cart, productId, false);
+        });
+    }
+
+    /**
+     * The guest counterpart of {@link #changeUserLine}, where lines are identified by product id.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CartDelta changeGuestLine(String sessionId, Long productId, int quantity, long version) {
+        return guestCartStore.update(sessionId, false, cart -> {
+            if (cart == null) {
+                return guestDelta(null, productId, quantity > 0);
+            }
+            int current = cart.versionOf(productId);
+            boolean conflict = current != version && !(current < 0 && quantity <= 0);
+            if (!conflict && current >= 0) {
+                cart.update(productId, quantity);
+            }
+            return guestDelta(cart, productId, conflict);
+        });
+    }
 
-        for (CartItem guestItem : guestItems) {
-            Optional<CartItem> userItem = cartItemRepository.findByUserAndProduct(user, guestItem.getProduct());
+    private CartDelta userDelta(User user, Optional<CartItem> item, Long cartItemId, boolean conflict) {
+        CartSummary summary = cartItemRepository.summarizeUserCart(user);
+        CartDelta.Line line = item.map(cartItem -> new CartDelta.Line(cartItem.getId(), cartItem.getProduct().getId(),
+                cartItem.getQuantity(), Money.of(cartItem.getProduct().getPrice()).times(cartItem.getQuantity()).getAmount(),
+                cartItem.getVersion())).orElse(null);
+        return new CartDelta(line, line == null ? cartItemId : null, Money.of(summary.getTotal()).getAmount(),
+                summary.getItemCount(), conflict);
+    }
 
-            if (userItem.isPresent()) {
-                // Merge quantities
-                CartItem existing = userItem.get();
-                existing.setQuantity(existing.getQuantity() + guestItem.getQuantity());
-                cartItemRepository.save(existing);
-            } else {
-                // Move guest item to user
-                guestItem.setUser(user);
-                guestItem.setSessionId(null);
-                cartItemRepository.save(guestItem);
+    private CartDelta guestDelta(GuestCart cart, Long productId, boolean conflict) {
+        long total = 0;
+        long itemCount = 0;
+        CartDelta.Line line = null;
+        List<GuestCartItem> items = cart == null ? Collections.emptyList() : itemsOf(cart);
+        for (GuestCartItem item : items) {
+            long subtotal = Math.multiplyExact(item.getProduct().getPriceMinorUnits(), item.getQuantity());
+            total = Math.addExact(total, subtotal);
+            itemCount += item.getQuantity();
+            if (item.getId().equals(productId)) {
+                line = new CartDelta.Line(productId, productId, item.getQuantity(),
+                        Money.ofMinor(subtotal).getAmount(), item.getVersion());
             }
         }
+        return new CartDelta(line, line == null ? productId : null, Money.ofMinor(total).getAmount(), itemCount, conflict);
+    }
+
+    // Locks only the cart, never the store, so it can run while the cart is locked
+    private List<GuestCartItem> itemsOf(GuestCart cart) {
+        List<GuestCartItem> items = new ArrayList<>();
+        synchronized (cart) {
+            cart.getQuantities().forEach((productId, quantity) ->
+                    catalogService.findProduct(productId).ifPresent(product ->
+                            items.add(new GuestCartItem(product, quantity, cart.versionOf(productId)))));
+        }
+        return items;
+    }
+
+    private static void checkPositive(int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+    }
 
-        // Clean up remaining guest items
-        cartItemRepository.deleteBySessionId(sessionId);
+    // Calculate totals in whole cents; throws ArithmeticException rather than overflowing
+    public Money calculateTotal(List<CartItem> cartItems) {
+        long total = 0;
+        for (CartItem item : cartItems) {
+            long price = Money.minorUnitsOf(item.getProduct().getPrice());
+            total = Math.addExact(total, Math.multiplyExact(price, item.getQuantity()));
+        }
+        return Money.ofMinor(total);
     }
 
-    // Calculate totals
-    public BigDecimal calculateTotal(List<CartItem> cartItems) {
-        return cartItems.stream()
-                .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // Total quantity of each product in the cart, in product id order
+    public Map<Long, Integer> getQuantitiesByProduct(List<CartItem> cartItems) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartItem item : cartItems) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
     }
 
     // Validate cart before checkout
@@ -0,0 +1,204 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.model.Product;
+import com.sportsstore.repository.CategoryRepository;
+import com.sportsstore.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the catalog for the storefront. Holds an immutable {@link CatalogSnapshot}
+ * that is replaced with a single reference swap whenever a product or category change
+ * commits, so readers never lock or touch the database. Stock levels live in separate
+ * counters shared with the snapshot's products, so checkouts only update a counter unless
+ * a product sells out or comes back into stock. Each counter remembers the product row version
+ * its level was read at, so a stock change whose listener runs late cannot overwrite a newer level.
+ */
+@Service
+public class CatalogService {
+
+    private static final int MAX_SEARCH_RESULTS = 50;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.empty());
+    // Stock changes do not republish the snapshot, so they are versioned separately
+    private final AtomicLong stockVersion = new AtomicLong();
+    private volatile Instant lastModified = Instant.now();
+    private final Map<Long, AtomicInteger> stockLevels = new ConcurrentHashMap<>();
+    // product id -> row version of the level held in its stock counter; guarded by this
+    private final Map<Long, Long> stockRowVersions = new HashMap<>();
+
+    @Autowired
+    public CatalogService(ProductRepository productRepository,
+                          CategoryRepository categoryRepository,
+                          ProductSearchIndex productSearchIndex,
+                          ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Changes whenever anything shown on a catalog page changes, including stock levels.
+     */
+    public String getCatalogVersion() {
+        return snapshot.get().getVersion() + "." + stockVersion.get();
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public Optional<CatalogProduct> findProduct(Long id) {
+        return snapshot.get().findProduct(id);
+    }
+
+    public List<CatalogCategory> getCategories() {
+        return snapshot.get().getCategories();
+    }
+
+    public List<CatalogProduct> findByCategory(Long categoryId) {
+        return snapshot.get().findByCategory(categoryId);
+    }
+
+    // Ranked by the search index and resolved against the snapshot, in relevance order
+    public List<CatalogProduct> searchProducts(String query) {
+        CatalogSnapshot current = snapshot.get();
+        List<CatalogProduct> products = new ArrayList<>();
+        for (Long id : productSearchIndex.search(query, MAX_SEARCH_RESULTS)) {
+            current.findProduct(id).ifPresent(products::add);
+        }
+        return products;
+    }
+
+    public ProductPage<CatalogProduct> findPage(ProductFilter filter, ProductSort sort, String cursor, int pageSize) {
+        return snapshot.get().findPage(filter, sort, KeysetCursor.decode(cursor), pageSize);
+    }
+
+    public FacetCounts countFacets(ProductFilter filter) {
+        return snapshot.get().countFacets(filter);
+    }
+
+    // Runs before the other startup listeners, which build on top of the snapshot
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public synchronized void rebuild() {
+        List<CatalogCategory> categories = categoryRepository.findAll().stream()
+                .map(CatalogCategory::from)
+                .collect(Collectors.toList());
+        Map<Long, CatalogCategory> categoriesById = categories.stream()
+                .collect(Collectors.toMap(CatalogCategory::getId, category -> category));
+
+        List<CatalogProduct> products = new ArrayList<>();
+        for (Product product : productRepository.findAll()) {
+            products.add(toCatalogProduct(product, categoriesById.get(product.getCategory().getId())));
+        }
+        Set<Long> productIds = products.stream().map(CatalogProduct::getId).collect(Collectors.toSet());
+        stockLevels.keySet().retainAll(productIds);
+        stockRowVersions.keySet().retainAll(productIds);
+
+        long version = snapshot.get().getVersion() + 1;
+        publish(CatalogSnapshot.of(version, categories, products));
+    }
+
+    @TransactionalEventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case STOCK_CHANGED:
+                if (!acceptStockVersion(event.getProductId(), event.getVersion())) {
+                    // A later checkout's level has already been applied
+                    break;
+                }
+                int previous = stockCounter(event.getProductId()).getAndSet(event.getStockQuantity());
+                stockVersion.incrementAndGet();
+                lastModified = Instant.now();
+                // Only selling out or restocking changes the in-stock facet
+                if ((previous > 0) != (event.getStockQuantity() > 0)) {
+                    publish(snapshot.get().withStockStatus(event.getProductId(), event.getStockQuantity() > 0));
+                }
+                break;
+            case DELETED:
+                publish(snapshot.get().withoutProduct(event.getProductId()));
+                stockLevels.remove(event.getProductId());
+                stockRowVersions.remove(event.getProductId());
+                break;
+            case SAVED:
+                CatalogSnapshot current = snapshot.get();
+                Product product = event.getProduct();
+                Optional<CatalogCategory> category = current.findCategory(product.getCategory().getId());
+                if (category.isEmpty()) {
+                    // Product moved into a category this snapshot has not seen yet
+                    rebuild();
+                    return;
+                }
+                publish(current.withProduct(toCatalogProduct(product, category.get())));
+                break;
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild();
+    }
+
+    private void publish(CatalogSnapshot next) {
+        if (snapshot.getAndSet(next) != next) {
+            lastModified = next.getPublishedAt();
+            eventPublisher.publishEvent(new CatalogUpdatedEvent(next));
+        }
+    }
+
+    private CatalogProduct toCatalogProduct(Product product, CatalogCategory category) {
+        AtomicInteger stock = stockCounter(product.getId());
+        long version = product.getVersion() != null ? product.getVersion() : 0;
+        if (acceptStockVersion(product.getId(), version)) {
+            stock.set(product.getStockQuantity());
+        }
+        return new CatalogProduct(product.getId(), version, product.getName(), product.getDescription(),
+                product.getPrice(), product.getImageUrl(), category, product.isFeatured(), stock);
+    }
+
+    // Records the version and returns true unless a level from a newer version is already held
+    private boolean acceptStockVersion(Long productId, long version) {
+        Long held = stockRowVersions.get(productId);
+        if (held != null && held > version) {
+            return false;
+        }
+        stockRowVersions.put(productId, version);
+        return true;
+    }
+
+    private AtomicInteger stockCounter(Long productId) {
+        return stockLevels.computeIfAbsent(productId, id -> new AtomicInteger());
+    }
+
+}
@@ -0,0 +1,399 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable view of the catalog. Products are stored in arrays sorted by id, so a product's
+ * position in the array (its ordinal) is stable for the lifetime of the snapshot and lookups
+ * by id are a binary search. Changes never modify a snapshot; they produce a new one.
+ * <p>
+ * Each snapshot also carries a bit set of ordinals per facet value (category, price range and
+ * in stock) and the ordinals in name and price order, so filtered, sorted and paginated
+ * listings and their facet counts are answered from memory.
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final Instant publishedAt;
+    private final long[] ids;
+    private final CatalogProduct[] products;
+    private final List<CatalogCategory> categories;
+
+    private final Map<Long, ProductBitSet> productsByCategory;
+    private final ProductBitSet[] productsByPriceRange;
+    private final ProductBitSet productsInStock;
+    private final int[] nameOrder;
+    private final int[] priceOrder;
+
+    private CatalogSnapshot(long version, long[] ids, CatalogProduct[] products, List<CatalogCategory> categories) {
+        this.version = version;
+        this.publishedAt = Instant.now();
+        this.ids = ids;
+        this.products = products;
+        this.categories = categories;
+        this.productsByCategory = new HashMap<>();
+        this.productsByPriceRange = new ProductBitSet[PriceRange.values().length];
+        this.productsInStock = new ProductBitSet(products.length);
+        this.nameOrder = sortedOrdinals(products,
+                Comparator.comparing(CatalogProduct::getName).thenComparing(CatalogProduct::getId));
+        this.priceOrder = sortedOrdinals(products,
+                Comparator.comparing(CatalogProduct::getPrice).thenComparing(CatalogProduct::getId));
+
+        for (PriceRange range : PriceRange.values()) {
+            productsByPriceRange[range.ordinal()] = new ProductBitSet(products.length);
+        }
+        for (int ordinal = 0; ordinal < products.length; ordinal++) {
+            CatalogProduct product = products[ordinal];
+            productsByCategory.computeIfAbsent(product.getCategory().getId(), id -> new ProductBitSet(products.length))
+                    .set(ordinal);
+            for (PriceRange range : PriceRange.values()) {
+                if (range.contains(product.getPrice())) {
+                    productsByPriceRange[range.ordinal()].set(ordinal);
+                }
+            }
+            if (product.isInStock()) {
+                productsInStock.set(ordinal);
+            }
+        }
+    }
+
+    // Shares everything with the previous snapshot except the in-stock bit set
+    private CatalogSnapshot(CatalogSnapshot previous, ProductBitSet productsInStock) {
+        this.version = previous.version + 1;
+        this.publishedAt = Instant.now();
+        this.ids = previous.ids;
+        this.products = previous.products;
+        this.categories = previous.categories;
+        this.productsByCategory = previous.productsByCategory;
+        this.productsByPriceRange = previous.productsByPriceRange;
+        this.productsInStock = productsInStock;
+        this.nameOrder = previous.nameOrder;
+        this.priceOrder = previous.priceOrder;
+    }
+
+    public static CatalogSnapshot empty() {
+        return new CatalogSnapshot(0, new long[0], new CatalogProduct[0], Collections.emptyList());
+    }
+
+    public static CatalogSnapshot of(long version, List<CatalogCategory> categories, List<CatalogProduct> products) {
+        CatalogProduct[] sorted = products.toArray(new CatalogProduct[0]);
+        Arrays.sort(sorted, Comparator.comparing(CatalogProduct::getId));
+
+        long[] ids = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = sorted[i].getId();
+        }
+
+        List<CatalogCategory> sortedCategories = new ArrayList<>(categories);
+        sortedCategories.sort(Comparator.comparing(CatalogCategory::getId));
+        return new CatalogSnapshot(version, ids, sorted, Collections.unmodifiableList(sortedCategories));
+    }
+
+    /**
+     * Returns a copy of this snapshot with the product added, or replaced if it already exists.
+     */
+    public CatalogSnapshot withProduct(CatalogProduct product) {
+        int position = Arrays.binarySearch(ids, product.getId());
+        if (position >= 0) {
+            CatalogProduct[] copy = products.clone();
+            copy[position] = product;
+            return new CatalogSnapshot(version + 1, ids, copy, categories);
+        }
+
+        int insertAt = -position - 1;
+        long[] newIds = new long[ids.length + 1];
+        CatalogProduct[] newProducts = new CatalogProduct[products.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, insertAt);
+        System.arraycopy(products, 0, newProducts, 0, insertAt);
+        newIds[insertAt] = product.getId();
+        newProducts[insertAt] = product;
+        System.arraycopy(ids, insertAt, newIds, insertAt + 1, ids.length - insertAt);
+        System.arraycopy(products, insertAt, newProducts, insertAt + 1, products.length - insertAt);
+        return new CatalogSnapshot(version + 1, newIds, newProducts, categories);
+    }
+
+    /**
+     * Returns a copy of this snapshot without the product, or this snapshot if it is not present.
+     */
+    public CatalogSnapshot withoutProduct(long productId) {
+        int position = Arrays.binarySearch(ids, productId);
+        if (position < 0) {
+            return this;
+        }
+
+        long[] newIds = new long[ids.length - 1];
+        CatalogProduct[] newProducts = new CatalogProduct[products.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, position);
+        System.arraycopy(products, 0, newProducts, 0, position);
+        System.arraycopy(ids, position + 1, newIds, position, ids.length - position - 1);
+        System.arraycopy(products, position + 1, newProducts, position, products.length - position - 1);
+        return new CatalogSnapshot(version + 1, newIds, newProducts, categories);
+    }
+
+    /**
+     * Returns a copy of this snapshot with the product moved in or out of the in-stock facet,
+     * or this snapshot if nothing changes. Only the in-stock bit set is copied.
+     */
+    public CatalogSnapshot withStockStatus(long productId, boolean inStock) {
+        int ordinal = ordinalOf(productId);
+        if (ordinal < 0 || productsInStock.get(ordinal) == inStock) {
+            return this;
+        }
+        return new CatalogSnapshot(this, productsInStock.with(ordinal, inStock));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getPublishedAt() {
+        return publishedAt;
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public CatalogProduct productAt(int ordinal) {
+        return products[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the product, or -1 if it is not in this snapshot.
+     */
+    public int ordinalOf(long productId) {
+        int position = Arrays.binarySearch(ids, productId);
+        return position >= 0 ? position : -1;
+    }
+
+    public Optional<CatalogProduct> findProduct(long productId) {
+        int ordinal = ordinalOf(productId);
+        return ordinal >= 0 ? Optional.of(products[ordinal]) : Optional.empty();
+    }
+
+    public List<CatalogProduct> findByCategory(long categoryId) {
+        ProductBitSet inCategory = productsByCategory.get(categoryId);
+        if (inCategory == null) {
+            return Collections.emptyList();
+        }
+        List<CatalogProduct> result = new ArrayList<>();
+        for (int ordinal = inCategory.nextSetBit(0); ordinal >= 0; ordinal = inCategory.nextSetBit(ordinal + 1)) {
+            result.add(products[ordinal]);
+        }
+        return result;
+    }
+
+    public List<CatalogCategory> getCategories() {
+        return categories;
+    }
+
+    public Optional<CatalogCategory> findCategory(long categoryId) {
+        for (CatalogCategory category : categories) {
+            if (category.getId() == categoryId) {
+                return Optional.of(category);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns one page of the products matching the filter, in the given order. Cursors carry
+     * the sort key and id of the first or last product on the page, so pages stay stable while
+     * products are added or removed between requests.
+     */
+    public ProductPage<CatalogProduct> findPage(ProductFilter filter, ProductSort sort,
+                                                KeysetScrollPosition position, int pageSize) {
+        ProductBitSet matching = ProductBitSet.intersect(
+                categoryBits(filter), priceRangeBits(filter), filter.inStockOnly() ? productsInStock : null);
+        Map<String, Object> cursorKeys = position.getKeys();
+        boolean initial = position.isInitial() || !isCursorFor(sort, cursorKeys);
+
+        List<CatalogProduct> page = new ArrayList<>(pageSize + 1);
+        if (initial || position.scrollsForward()) {
+            int start = initial ? 0 : firstPositionAfter(sort, cursorKeys, true);
+            for (int i = start; i < products.length && page.size() <= pageSize; i++) {
+                int ordinal = ordinalAt(sort, i);
+                if (matching == null || matching.get(ordinal)) {
+                    page.add(products[ordinal]);
+                }
+            }
+
+            boolean hasNext = page.size() > pageSize;
+            if (hasNext) {
+                page.remove(pageSize);
+            }
+            return toPage(page, sort, hasNext, !initial);
+        }
+
+        int end = firstPositionAfter(sort, cursorKeys, false);
+        for (int i = end - 1; i >= 0 && page.size() <= pageSize; i--) {
+            int ordinal = ordinalAt(sort, i);
+            if (matching == null || matching.get(ordinal)) {
+                page.add(products[ordinal]);
+            }
+        }
+
+        boolean hasPrevious = page.size() > pageSize;
+        if (hasPrevious) {
+            page.remove(pageSize);
+        }
+        Collections.reverse(page);
+        return toPage(page, sort, true, hasPrevious);
+    }
+
+    /**
+     * Counts the products behind every facet value, taking the filter's other selections into account.
+     */
+    public FacetCounts countFacets(ProductFilter filter) {
+        ProductBitSet category = categoryBits(filter);
+        ProductBitSet priceRange = priceRangeBits(filter);
+        ProductBitSet inStock = filter.inStockOnly() ? productsInStock : null;
+        int size = products.length;
+
+        Map<Long, Integer> categoryCounts = new LinkedHashMap<>();
+        for (CatalogCategory catalogCategory : categories) {
+            ProductBitSet inCategory = productsByCategory.get(catalogCategory.getId());
+            categoryCounts.put(catalogCategory.getId(),
+                    inCategory != null ? ProductBitSet.countIntersection(size, inCategory, priceRange, inStock) : 0);
+        }
+
+        Map<PriceRange, Integer> priceRangeCounts = new EnumMap<>(PriceRange.class);
+        for (PriceRange range : PriceRange.values()) {
+            priceRangeCounts.put(range, ProductBitSet.countIntersection(
+                    size, category, productsByPriceRange[range.ordinal()], inStock));
+        }
+
+        return new FacetCounts(
+                ProductBitSet.countIntersection(size, category, priceRange, inStock),
+                categoryCounts,
+                priceRangeCounts,
+                ProductBitSet.countIntersection(size, category, priceRange, productsInStock));
+    }
+
+    private ProductBitSet categoryBits(ProductFilter filter) {
+        if (filter.categoryId() == null) {
+            return null;
+        }
+        // An unknown category matches nothing rather than everything
+        return productsByCategory.getOrDefault(filter.categoryId(), new ProductBitSet(products.length));
+    }
+
+    private ProductBitSet priceRangeBits(ProductFilter filter) {
+        return filter.priceRange() != null ? productsByPriceRange[filter.priceRange().ordinal()] : null;
+    }
+
+    // Maps a position in the listing order to a product ordinal; NEWEST is simply descending id order
+    private int ordinalAt(ProductSort sort, int position) {
+        switch (sort) {
+            case PRICE:
+                return priceOrder[position];
+            case NEWEST:
+                return products.length - 1 - position;
+            default:
+                return nameOrder[position];
+        }
+    }
+
+    /**
+     * Returns the first position in the listing order that comes after the cursor, or that is
+     * at or after it when {@code exclusive} is false.
+     */
+    private int firstPositionAfter(ProductSort sort, Map<String, Object> cursorKeys, boolean exclusive) {
+        int low = 0;
+        int high = products.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareToCursor(products[ordinalAt(sort, middle)], sort, cursorKeys);
+            if (comparison < 0 || (exclusive && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int compareToCursor(CatalogProduct product, ProductSort sort, Map<String, Object> cursorKeys) {
+        long cursorId = (Long) cursorKeys.get("id");
+        switch (sort) {
+            case NAME:
+                int byName = product.getName().compareTo((String) cursorKeys.get("name"));
+                return byName != 0 ? byName : Long.compare(product.getId(), cursorId);
+            case PRICE:
+                int byPrice = product.getPrice().compareTo((BigDecimal) cursorKeys.get("price"));
+                return byPrice != 0 ? byPrice : Long.compare(product.getId(), cursorId);
+            default:
+                return Long.compare(cursorId, product.getId());
+        }
+    }
+
+    // A cursor from a different sort order cannot be positioned, so it starts from the first page
+    private static boolean isCursorFor(ProductSort sort, Map<String, Object> cursorKeys) {
+        if (!(cursorKeys.get("id") instanceof Long)) {
+            return false;
+        }
+        switch (sort) {
+            case NAME:
+                return cursorKeys.get("name") instanceof String;
+            case PRICE:
+                return cursorKeys.get("price") instanceof BigDecimal;
+            default:
+                return cursorKeys.size() == 1;
+        }
+    }
+
+    private static ProductPage<CatalogProduct> toPage(List<CatalogProduct> page, ProductSort sort,
+                                                      boolean hasNext, boolean hasPrevious) {
+        if (page.isEmpty()) {
+            return new ProductPage<>(Collections.emptyList(), null, null);
+        }
+        String nextCursor = hasNext
+                ? KeysetCursor.encode(ScrollPosition.forward(cursorKeys(page.get(page.size() - 1), sort)))
+                : null;
+        String previousCursor = hasPrevious
+                ? KeysetCursor.encode(ScrollPosition.backward(cursorKeys(page.get(0), sort)))
+                : null;
+        return new ProductPage<>(page, nextCursor, previousCursor);
+    }
+
+    private static Map<String, Object> cursorKeys(CatalogProduct product, ProductSort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        switch (sort) {
+            case NAME:
+                keys.put("name", product.getName());
+                break;
+            case PRICE:
+                keys.put("price", product.getPrice());
+                break;
+            default:
+                break;
+        }
+        keys.put("id", product.getId());
+        return keys;
+    }
+
+    private static int[] sortedOrdinals(CatalogProduct[] products, Comparator<CatalogProduct> order) {
+        Integer[] ordinals = new Integer[products.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = i;
+        }
+        Arrays.sort(ordinals, (a, b) -> order.compare(products[a], products[b]));
+        return Arrays.stream(ordinals).mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,19 @@
+package com.sportsstore.service;
+
+/**
+ * Published by {@link CatalogService} each time it publishes a new {@link CatalogSnapshot}.
+ * Structures derived from the snapshot listen for it instead of the underlying product and
+ * category events, so they never rebuild from a snapshot that is about to be replaced.
+ */
+public class CatalogUpdatedEvent {
+
+    private final CatalogSnapshot snapshot;
+
+    public CatalogUpdatedEvent(CatalogSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,17 @@
+package com.sportsstore.service;
+
+/**
+ * Published by {@link CategoryService} whenever a category is saved or deleted.
+ */
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+
+    public CategoryChangedEvent(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+}
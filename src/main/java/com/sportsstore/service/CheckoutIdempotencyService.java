@@ -0,0 +1,126 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Order;
+import com.sportsstore.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes checkout safe to submit more than once. Each checkout form carries a fresh key; the
+ * first submission with a key places the order and every later one gets that same order back.
+ * <p>
+ * Recently used keys are answered from a bounded in-memory map. Older keys are found through
+ * the unique {@code idempotency_key} column on orders, which also settles a race between two
+ * application instances: the loser's insert fails and it returns the winner's order.
+ * Submissions that arrive while the first is still running wait for its result.
+ */
+@Service
+public class CheckoutIdempotencyService {
+
+    // Matches the idempotency_key column
+    static final int MAX_KEY_LENGTH = 64;
+
+    private final OrderRepository orderRepository;
+    private final Map<String, PlacedOrder> recentKeys;
+    private final Map<String, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CheckoutIdempotencyService(OrderRepository orderRepository,
+                                      @Value("${store.checkout.idempotency-keys:10000}") int maxKeys) {
+        this.orderRepository = orderRepository;
+        this.recentKeys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PlacedOrder> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    public String newKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Returns the order already placed by this user with the key, if there is one.
+     */
+    public Optional<Long> findOrderId(String key, Long userId) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key is too long");
+        }
+        PlacedOrder placed;
+        synchronized (recentKeys) {
+            placed = recentKeys.get(key);
+        }
+        if (placed == null) {
+            placed = orderRepository.findByIdempotencyKey(key)
+                    .map(order -> new PlacedOrder(order.getUser().getId(), order.getId()))
+                    .orElse(null);
+            if (placed != null) {
+                remember(key, placed);
+            }
+        }
+        return placed != null && placed.userId().equals(userId) ? Optional.of(placed.orderId()) : Optional.empty();
+    }
+
+    /**
+     * Places the order unless the key has been used already, and returns the order id either way.
+     * A submission without a key is simply placed.
+     */
+    public Long placeOnce(String key, Long userId, Supplier<Order> placeOrder) {
+        if (key == null) {
+            return placeOrder.get().getId();
+        }
+
+        CompletableFuture<Long> mine = new CompletableFuture<>();
+        CompletableFuture<Long> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Once the first submission is done its order is found; if it failed, this one tries again
+            running.handle((orderId, failure) -> orderId).join();
+            return placeOnce(key, userId, placeOrder);
+        }
+
+        try {
+            Long orderId = findOrderId(key, userId).orElseGet(() -> place(key, userId, placeOrder));
+            mine.complete(orderId);
+            return orderId;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Long place(String key, Long userId, Supplier<Order> placeOrder) {
+        try {
+            Long orderId = placeOrder.get().getId();
+            remember(key, new PlacedOrder(userId, orderId));
+            return orderId;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance placed an order with this key first
+            return findOrderId(key, userId).orElseThrow(() -> e);
+        }
+    }
+
+    private void remember(String key, PlacedOrder placed) {
+        synchronized (recentKeys) {
+            recentKeys.put(key, placed);
+        }
+    }
+
+    private record PlacedOrder(Long userId, Long orderId) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.sportsstore.service;
+
+import java.util.Map;
+
+/**
+ * Number of products behind each facet value of a storefront listing. The count for a
+ * value applies every other selected facet, so it is the number of products the listing
+ * would show if that value were picked instead.
+ */
+public class FacetCounts {
+
+    private final int total;
+    private final Map<Long, Integer> categories;
+    private final Map<PriceRange, Integer> priceRanges;
+    private final int inStock;
+
+    public FacetCounts(int total, Map<Long, Integer> categories, Map<PriceRange, Integer> priceRanges, int inStock) {
+        this.total = total;
+        this.categories = categories;
+        this.priceRanges = priceRanges;
+        this.inStock = inStock;
+    }
+
+    // Products matching every selected facet
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCategoryCount(Long categoryId) {
+        return categories.getOrDefault(categoryId, 0);
+    }
+
+    public int getPriceRangeCount(PriceRange priceRange) {
+        return priceRanges.getOrDefault(priceRange, 0);
+    }
+
+    public int getInStockCount() {
+        return inStock;
+    }
+}
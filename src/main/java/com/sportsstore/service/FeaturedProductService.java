@@ -0,0 +1,239 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.repository.OrderRepository;
+import com.sportsstore.repository.ProductSale;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the home page's featured products ranked incrementally.
+ * <p>
+ * Each in-stock product is scored as
+ * {@code salesWeight * recentSales + stockWeight * stock + (pinned ? pinBoost : 0)},
+ * where recent sales decay exponentially with a configurable half-life. Products are kept in a
+ * sorted set, so an order or stock change re-ranks one product in O(log n) and the current top K
+ * ids are republished in O(K). The home page only reads that published list.
+ * <p>
+ * Decay is applied when a product's score is updated, so products that have not changed drift
+ * slightly out of date; a scheduled rescore brings every product back to the same point in time.
+ */
+@Service
+public class FeaturedProductService {
+
+    private final OrderRepository orderRepository;
+    private final CatalogService catalogService;
+
+    private final int size;
+    private final double salesWeight;
+    private final double stockWeight;
+    private final double pinBoost;
+    private final double decayPerMilli;
+    private final Duration salesHistory;
+
+    // Only in-stock products are in the ranking; all known products are in the candidate map
+    private final Map<Long, Candidate> candidates = new HashMap<>();
+    private final TreeSet<Candidate> ranking = new TreeSet<>(
+            Comparator.comparingDouble((Candidate candidate) -> candidate.score).reversed()
+                    .thenComparingLong(candidate -> candidate.productId));
+
+    private volatile long[] featuredIds = new long[0];
+
+    @Autowired
+    public FeaturedProductService(OrderRepository orderRepository,
+                                  CatalogService catalogService,
+                                  @Value("${store.featured.size:8}") int size,
+                                  @Value("${store.featured.sales-weight:1.0}") double salesWeight,
+                                  @Value("${store.featured.stock-weight:0.01}") double stockWeight,
+                                  @Value("${store.featured.pin-boost:1000000}") double pinBoost,
+                                  @Value("${store.featured.sales-half-life:7d}") Duration salesHalfLife) {
+        this.orderRepository = orderRepository;
+        this.catalogService = catalogService;
+        this.size = size;
+        this.salesWeight = salesWeight;
+        this.stockWeight = stockWeight;
+        this.pinBoost = pinBoost;
+        this.decayPerMilli = Math.log(2) / salesHalfLife.toMillis();
+        // Beyond eight half-lives a sale contributes less than 0.4% of its original weight
+        this.salesHistory = salesHalfLife.multipliedBy(8);
+    }
+
+    /**
+     * Returns the current featured products, best first. Reads the published top K only.
+     */
+    public List<CatalogProduct> getFeaturedProducts() {
+        long[] ids = featuredIds;
+        List<CatalogProduct> featured = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            catalogService.findProduct(id)
+                    .filter(CatalogProduct::isInStock)
+                    .ifPresent(featured::add);
+        }
+        return featured;
+    }
+
+    /**
+     * Returns the decayed recent sales of every product that has sold recently.
+     */
+    public synchronized Map<Long, Double> getRecentSales() {
+        long now = System.currentTimeMillis();
+        Map<Long, Double> recentSales = new HashMap<>();
+        for (Candidate candidate : candidates.values()) {
+            if (candidate.recentSales > 0) {
+                recentSales.put(candidate.productId, candidate.recentSales * decay(now - candidate.salesUpdatedAt));
+            }
+        }
+        return recentSales;
+    }
+
+    // After the catalog snapshot it ranks, before the suggestion index that reads its sales
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public synchronized void rebuild() {
+        long now = System.currentTimeMillis();
+        Map<Long, Double> recentSales = new HashMap<>();
+        for (ProductSale sale : orderRepository.findSalesSince(LocalDateTime.now().minus(salesHistory))) {
+            long soldAt = sale.getOrderDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            recentSales.merge(sale.getProductId(), sale.getQuantity() * decay(now - soldAt), Double::sum);
+        }
+
+        candidates.clear();
+        ranking.clear();
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+            CatalogProduct product = snapshot.productAt(ordinal);
+            Candidate candidate = new Candidate(product.getId());
+            candidate.recentSales = recentSales.getOrDefault(product.getId(), 0.0);
+            candidate.salesUpdatedAt = now;
+            candidate.stock = product.getStockQuantity();
+            candidate.stockVersion = product.getVersion();
+            candidate.pinned = product.isFeatured();
+            candidates.put(candidate.productId, candidate);
+            rank(candidate);
+        }
+        publish();
+    }
+
+    // Brings every product's sales decay up to date so scores are comparable again
+    @Scheduled(fixedDelayString = "${store.featured.rescore-interval:PT1H}",
+               initialDelayString = "${store.featured.rescore-interval:PT1H}")
+    public synchronized void rescore() {
+        long now = System.currentTimeMillis();
+        ranking.clear();
+        for (Candidate candidate : candidates.values()) {
+            candidate.recentSales *= decay(now - candidate.salesUpdatedAt);
+            candidate.salesUpdatedAt = now;
+            rank(candidate);
+        }
+        publish();
+    }
+
+    @TransactionalEventListener
+    public synchronized void onOrderPlaced(OrderPlacedEvent event) {
+        long now = System.currentTimeMillis();
+        for (OrderPlacedEvent.Line line : event.getLines()) {
+            Candidate candidate = candidates.get(line.productId());
+            if (candidate == null) {
+                continue;
+            }
+            ranking.remove(candidate);
+            candidate.recentSales = candidate.recentSales * decay(now - candidate.salesUpdatedAt) + line.quantity();
+            candidate.salesUpdatedAt = now;
+            rank(candidate);
+        }
+        publish();
+    }
+
+    @TransactionalEventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Candidate candidate = candidates.get(event.getProductId());
+        if (candidate != null) {
+            ranking.remove(candidate);
+        }
+
+        switch (event.getType()) {
+            case DELETED:
+                candidates.remove(event.getProductId());
+                break;
+            case STOCK_CHANGED:
+                if (candidate != null) {
+                    // Listeners of concurrent checkouts can run out of order; keep the newer level
+                    if (event.isNewerThan(candidate.stockVersion)) {
+                        candidate.stock = event.getStockQuantity();
+                        candidate.stockVersion = event.getVersion();
+                    }
+                    rank(candidate);
+                }
+                break;
+            case SAVED:
+                if (candidate == null) {
+                    candidate = new Candidate(event.getProductId());
+                    candidate.salesUpdatedAt = System.currentTimeMillis();
+                    candidates.put(candidate.productId, candidate);
+                }
+                if (event.isNewerThan(candidate.stockVersion)) {
+                    candidate.stock = event.getStockQuantity();
+                    candidate.stockVersion = event.getVersion();
+                }
+                candidate.pinned = event.getProduct().isFeatured();
+                rank(candidate);
+                break;
+        }
+        publish();
+    }
+
+    // Recomputes the score and adds the candidate to the ranking if it is in stock
+    private void rank(Candidate candidate) {
+        candidate.score = salesWeight * candidate.recentSales
+                + stockWeight * candidate.stock
+                + (candidate.pinned ? pinBoost : 0);
+        if (candidate.stock > 0) {
+            ranking.add(candidate);
+        }
+    }
+
+    private void publish() {
+        long[] top = new long[Math.min(size, ranking.size())];
+        Iterator<Candidate> iterator = ranking.iterator();
+        for (int i = 0; i < top.length; i++) {
+            top[i] = iterator.next().productId;
+        }
+        featuredIds = top;
+    }
+
+    private double decay(long elapsedMillis) {
+        return Math.exp(-decayPerMilli * Math.max(0, elapsedMillis));
+    }
+
+    private static class Candidate {
+        final long productId;
+        double recentSales;
+        long salesUpdatedAt;
+        int stock;
+        // Row version the stock was read at; none yet for a product that was just created
+        long stockVersion = -1;
+        boolean pinned;
+        double score;
+
+        Candidate(long productId) {
+            this.productId = productId;
+        }
+    }
+}
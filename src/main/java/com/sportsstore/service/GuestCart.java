@@ -0,0 +1,163 @@
+package com.sportsstore.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A guest's cart held in memory: product ids, quantities and line versions in parallel arrays,
+ * in the order the products were added. Carts are small, so lookups scan the arrays.
+ */
+class GuestCart {
+
+    private final int maxLines;
+    private String sessionId;
+    private long[] productIds = new long[4];
+    private int[] quantities = new int[4];
+    // Bumped on every change to a line, like CartItem.version
+    private int[] versions = new int[4];
+    private int size;
+
+    // Set by every change and cleared once the change has been written to cart_items
+    private boolean dirty;
+    // The session id the rows in cart_items were last written under, or null if never written
+    private String persistedSessionId;
+    // Held across each write to cart_items, so writes of this cart happen one at a time
+    private final Object writeLock = new Object();
+    // Set once the cart has left GuestCartStore; it must not be written again after that
+    private boolean retired;
+
+    GuestCart(String sessionId, int maxLines) {
+        this.sessionId = sessionId;
+        this.maxLines = maxLines;
+    }
+
+    synchronized String getSessionId() {
+        return sessionId;
+    }
+
+    // Follows the session to its new id; the rows must then be rewritten under it
+    synchronized void rename(String newSessionId) {
+        sessionId = newSessionId;
+        dirty = true;
+    }
+
+    synchronized void add(long productId, int quantity) {
+        int index = indexOf(productId);
+        if (index >= 0) {
+            quantities[index] += quantity;
+            versions[index]++;
+        } else {
+            if (size == maxLines) {
+                throw new IllegalArgumentException("Your cart can hold at most " + maxLines + " different products");
+            }
+            if (size == productIds.length) {
+                productIds = Arrays.copyOf(productIds, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+                versions = Arrays.copyOf(versions, size * 2);
+            }
+            productIds[size] = productId;
+            quantities[size] = quantity;
+            versions[size] = 0;
+            size++;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Sets the quantity of a product already in the cart, removing it when the quantity is not
+     * positive. Returns false if the product is not in the cart.
+     */
+    synchronized boolean update(long productId, int quantity) {
+        int index = indexOf(productId);
+        if (index < 0) {
+            return false;
+        }
+        if (quantity > 0) {
+            quantities[index] = quantity;
+            versions[index]++;
+        } else {
+            size--;
+            System.arraycopy(productIds, index + 1, productIds, index, size - index);
+            System.arraycopy(quantities, index + 1, quantities, index, size - index);
+            System.arraycopy(versions, index + 1, versions, index, size - index);
+        }
+        dirty = true;
+        return true;
+    }
+
+    // Zero if the product is not in the cart
+    synchronized int quantityOf(long productId) {
+        int index = indexOf(productId);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    // -1 if the product is not in the cart
+    synchronized int versionOf(long productId) {
+        int index = indexOf(productId);
+        return index < 0 ? -1 : versions[index];
+    }
+
+    // Product id to quantity, in the order the products were added
+    synchronized Map<Long, Integer> getQuantities() {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            lines.put(productIds[i], quantities[i]);
+        }
+        return lines;
+    }
+
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    synchronized String getPersistedSessionId() {
+        return persistedSessionId;
+    }
+
+    Object writeLock() {
+        return writeLock;
+    }
+
+    synchronized boolean isRetired() {
+        return retired;
+    }
+
+    synchronized void retire() {
+        retired = true;
+    }
+
+    /**
+     * Retires the cart unless it changed since its last write, in one step with respect to
+     * changes, so no change can land between the check and the retirement.
+     */
+    synchronized boolean retireIfClean() {
+        if (dirty) {
+            return false;
+        }
+        retired = true;
+        return true;
+    }
+
+    /**
+     * Records a write of the given lines under {@code writtenSessionId}, which is null when there
+     * was nothing to write. Changes made since leave the cart dirty.
+     */
+    synchronized void markPersisted(String writtenSessionId, Map<Long, Integer> written) {
+        if (writtenSessionId != null) {
+            persistedSessionId = writtenSessionId;
+        }
+        if ((writtenSessionId == null || writtenSessionId.equals(sessionId)) && written.equals(getQuantities())) {
+            dirty = false;
+        }
+    }
+
+    private int indexOf(long productId) {
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
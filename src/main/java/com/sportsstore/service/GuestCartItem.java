@@ -0,0 +1,41 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.model.Money;
+
+/**
+ * One line of a guest's in-memory cart, shaped like a {@code CartItem} for the cart page. The id
+ * is the product id, since guest lines have no row of their own.
+ */
+public class GuestCartItem {
+
+    private final CatalogProduct product;
+    private final int quantity;
+    private final long version;
+
+    public GuestCartItem(CatalogProduct product, int quantity, long version) {
+        this.product = product;
+        this.quantity = quantity;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return product.getId();
+    }
+
+    public CatalogProduct getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Money getSubtotal() {
+        return Money.ofMinor(product.getPriceMinorUnits()).times(quantity);
+    }
+}
@@ -0,0 +1,334 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CartItem;
+import com.sportsstore.repository.CartItemRepository;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionIdListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Holds guest carts in memory, keyed by session id, so browsing and adding to the cart need no
+ * database round trip.
+ * <p>
+ * Carts are written behind to {@code cart_items} every {@code store.cart.guest.write-behind-interval}
+ * so a restart with persistent sessions loses little, and immediately when a guest logs in and
+ * the cart is merged into theirs. At most {@code store.cart.guest.max-carts} carts are kept; the
+ * least recently used is written out and dropped beyond that, and read back if its guest returns.
+ * A cart follows its session when the id changes on login; {@link GuestCartSweeper} drops it
+ * when the session ends.
+ * <p>
+ * Database reads and writes happen outside the store's lock. Writes of one cart are serialized,
+ * and a cart is never written again once it has left the store, so a flush that picked a cart
+ * before a login merge or eviction cannot put back rows those have already replaced. Changes
+ * go through {@link #update}, which never changes a cart that has left the store, so a change
+ * racing with a write is either part of the cart that was written or applied to the next copy.
+ */
+@Component
+public class GuestCartStore implements HttpSessionIdListener {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestCartStore.class);
+
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCarts;
+    private final int maxLines;
+
+    private final Map<String, GuestCart> carts = new LinkedHashMap<>(16, 0.75f, true);
+    // Carts pushed out by the size bound whose write to cart_items has not finished yet
+    private final Map<String, GuestCart> spilling = new HashMap<>();
+    // Session ids of carts pushed out of memory by the size bound; their lines are in cart_items
+    private final Set<String> spilled = new HashSet<>();
+
+    @Autowired
+    public GuestCartStore(CartItemRepository cartItemRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${store.cart.guest.max-carts:10000}") int maxCarts,
+                          @Value("${store.cart.guest.max-lines:50}") int maxLines) {
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxCarts = maxCarts;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Returns the session's cart, or null if the guest has not added anything.
+     */
+    GuestCart find(String sessionId) {
+        GuestCart cart;
+        Map<String, GuestCart> evicted;
+        synchronized (this) {
+            cart = carts.get(sessionId);
+            if (cart != null) {
+                return cart;
+            }
+            // Pushed out but not written yet: take it back as it is
+            cart = spilling.remove(sessionId);
+            if (cart == null && !spilled.contains(sessionId)) {
+                return null;
+            }
+            evicted = cart != null ? put(cart) : Map.of();
+        }
+        spill(evicted);
+        return cart != null ? cart : reload(sessionId);
+    }
+
+    GuestCart getOrCreate(String sessionId) {
+        while (true) {
+            GuestCart cart = find(sessionId);
+            if (cart != null) {
+                return cart;
+            }
+            Map<String, GuestCart> evicted = Map.of();
+            synchronized (this) {
+                // Unless another request created or spilled it since find looked
+                if (!holds(sessionId)) {
+                    cart = new GuestCart(sessionId, maxLines);
+                    evicted = put(cart);
+                }
+            }
+            if (cart != null) {
+                spill(evicted);
+                return cart;
+            }
+        }
+    }
+
+    /**
+     * Runs {@code change} on the session's cart while holding the cart's lock. Without
+     * {@code create}, a guest with no cart is passed null. A cart that was written out and
+     * retired before the lock was taken is left alone and the change retried on the copy the
+     * store hands out next, so it never lands on a cart that will not be written again.
+     */
+    <T> T update(String sessionId, boolean create, Function<GuestCart, T> change) {
+        while (true) {
+            GuestCart cart = create ? getOrCreate(sessionId) : find(sessionId);
+            if (cart == null) {
+                return change.apply(null);
+            }
+            synchronized (cart) {
+                if (!cart.isRetired()) {
+                    return change.apply(cart);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the session's cart to {@code cart_items} and forgets it, leaving the rows as the only
+     * copy of the cart.
+     */
+    void moveToDatabase(String sessionId) {
+        GuestCart cart;
+        synchronized (this) {
+            spilled.remove(sessionId);
+            cart = carts.remove(sessionId);
+            if (cart == null) {
+                cart = spilling.remove(sessionId);
+            }
+        }
+        if (cart != null) {
+            // Waits for a flush already writing the cart and keeps any later one from writing it;
+            // a change that came in during the write is written too
+            synchronized (cart.writeLock()) {
+                do {
+                    write(cart);
+                } while (!cart.retireIfClean());
+            }
+        }
+    }
+
+    /**
+     * Forgets the session's cart and returns the session id its rows were written under, if any.
+     */
+    String discard(String sessionId) {
+        GuestCart cart;
+        boolean wasSpilled;
+        synchronized (this) {
+            cart = carts.remove(sessionId);
+            if (cart == null) {
+                cart = spilling.remove(sessionId);
+            }
+            wasSpilled = spilled.remove(sessionId);
+        }
+        if (cart != null) {
+            synchronized (cart.writeLock()) {
+                cart.retire();
+            }
+        }
+        if (wasSpilled) {
+            return sessionId;
+        }
+        return cart != null ? cart.getPersistedSessionId() : null;
+    }
+
+    /**
+     * Whether the session still has a cart here, in memory or spilled to the database.
+     */
+    synchronized boolean holds(String sessionId) {
+        return carts.containsKey(sessionId) || spilling.containsKey(sessionId) || spilled.contains(sessionId);
+    }
+
+    synchronized int size() {
+        return carts.size();
+    }
+
+    /**
+     * Writes every cart changed since its last write.
+     */
+    @Scheduled(fixedDelayString = "${store.cart.guest.write-behind-interval:PT1M}",
+               initialDelayString = "${store.cart.guest.write-behind-interval:PT1M}")
+    public void flush() {
+        List<GuestCart> dirty = new ArrayList<>();
+        synchronized (this) {
+            for (GuestCart cart : carts.values()) {
+                if (cart.isDirty()) {
+                    dirty.add(cart);
+                }
+            }
+        }
+        // Outside the lock, so guests are not held up by the writes
+        for (GuestCart cart : dirty) {
+            try {
+                write(cart);
+            } catch (RuntimeException e) {
+                log.warn("Could not write guest cart for session {}; will retry", cart.getSessionId(), e);
+            }
+        }
+    }
+
+    @Override
+    public void sessionIdChanged(HttpSessionEvent event, String oldSessionId) {
+        String newSessionId = event.getSession().getId();
+        Map<String, GuestCart> evicted = Map.of();
+        boolean wasSpilled;
+        synchronized (this) {
+            GuestCart cart = carts.remove(oldSessionId);
+            if (cart == null) {
+                cart = spilling.remove(oldSessionId);
+            }
+            if (cart != null) {
+                cart.rename(newSessionId);
+                evicted = put(cart);
+            }
+            wasSpilled = spilled.remove(oldSessionId);
+        }
+        spill(evicted);
+        if (wasSpilled) {
+            // Read the lines back under the old id and let the next flush rewrite them. The new id
+            // only reaches the browser with this response, so no request looks for it meanwhile
+            GuestCart loaded = load(oldSessionId);
+            loaded.rename(newSessionId);
+            synchronized (this) {
+                evicted = put(loaded);
+            }
+            spill(evicted);
+        }
+    }
+
+    // Returns the carts pushed out by the size bound, for the caller to spill once it has let go of the lock
+    private Map<String, GuestCart> put(GuestCart cart) {
+        carts.put(cart.getSessionId(), cart);
+        if (carts.size() <= maxCarts) {
+            return Map.of();
+        }
+        Map<String, GuestCart> evicted = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, GuestCart>> eldest = carts.entrySet().iterator();
+        while (carts.size() > maxCarts) {
+            Map.Entry<String, GuestCart> entry = eldest.next();
+            eldest.remove();
+            spilling.put(entry.getKey(), entry.getValue());
+            evicted.put(entry.getKey(), entry.getValue());
+        }
+        return evicted;
+    }
+
+    /**
+     * Writes out carts pushed out by the size bound so they can be read back later. A cart taken
+     * back by its guest meanwhile stays with them; one whose write failed or that changed while
+     * being written goes back in memory rather than lose the change.
+     */
+    private void spill(Map<String, GuestCart> evicted) {
+        for (Map.Entry<String, GuestCart> entry : evicted.entrySet()) {
+            String sessionId = entry.getKey();
+            GuestCart cart = entry.getValue();
+            synchronized (cart.writeLock()) {
+                try {
+                    write(cart);
+                } catch (RuntimeException e) {
+                    log.warn("Could not spill guest cart for session {}; keeping it in memory", sessionId, e);
+                }
+                synchronized (this) {
+                    if (!spilling.remove(sessionId, cart)) {
+                        continue;
+                    }
+                    if (!cart.retireIfClean()) {
+                        carts.put(sessionId, cart);
+                    } else if (cart.getPersistedSessionId() != null) {
+                        spilled.add(sessionId);
+                    }
+                }
+            }
+        }
+    }
+
+    // Reads a spilled cart back outside the lock
+    private GuestCart reload(String sessionId) {
+        GuestCart loaded = load(sessionId);
+        Map<String, GuestCart> evicted = Map.of();
+        synchronized (this) {
+            if (spilled.remove(sessionId)) {
+                evicted = put(loaded);
+            } else {
+                // Another request read it back first, or it was discarded or merged meanwhile
+                loaded = null;
+            }
+        }
+        spill(evicted);
+        return loaded != null ? loaded : find(sessionId);
+    }
+
+    private GuestCart load(String sessionId) {
+        GuestCart cart = new GuestCart(sessionId, maxLines);
+        List<CartItem> rows = cartItemRepository.findBySessionId(sessionId);
+        for (CartItem row : rows) {
+            cart.add(row.getProduct().getId(), row.getQuantity());
+        }
+        cart.markPersisted(sessionId, cart.getQuantities());
+        return cart;
+    }
+
+    // Skips a cart with nothing new to write, and one that has left the store since it was picked
+    private void write(GuestCart cart) {
+        synchronized (cart.writeLock()) {
+            if (cart.isRetired() || !cart.isDirty()) {
+                return;
+            }
+            String sessionId = cart.getSessionId();
+            Map<Long, Integer> quantities = cart.getQuantities();
+            if (cart.getPersistedSessionId() == null && quantities.isEmpty()) {
+                cart.markPersisted(null, quantities);
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    cartItemRepository.replaceGuestCart(cart.getPersistedSessionId(), sessionId, quantities));
+            cart.markPersisted(sessionId, quantities);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sportsstore.service;
+
+import java.time.Duration;
+
+/**
+ * Running totals of guest cart row cleanup since startup, shown on the admin dashboard.
+ * Sweep times include the pauses between batches.
+ */
+public record GuestCartSweepStats(long sweeps, long rowsSwept, long rowsDroppedOnSessionEnd,
+                                  Duration lastSweepTime, Duration totalSweepTime) {
+}
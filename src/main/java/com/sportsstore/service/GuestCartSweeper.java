@@ -0,0 +1,144 @@
+package com.sportsstore.service;
+
+import com.sportsstore.repository.CartItemRepository;
+import com.sportsstore.repository.GuestCartRepository.GuestRow;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes guest cart rows from {@code cart_items} once their session is over.
+ * <p>
+ * When a session ends its cart is dropped from {@link GuestCartStore} and its rows deleted
+ * straight away. Rows that outlive their session anyway, such as those left by a restart or a
+ * write that raced the session's end, are swept on a schedule once they have not been written
+ * for {@code store.cart.guest.sweep-max-age}. The sweep deletes a small batch per transaction
+ * and pauses between batches, so it never holds locks for long. Rows of carts the store still
+ * holds are only marked as touched.
+ */
+@Service
+public class GuestCartSweeper implements HttpSessionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestCartSweeper.class);
+
+    private final CartItemRepository cartItemRepository;
+    private final GuestCartStore guestCartStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final Duration pause;
+
+    private final LongAdder sweeps = new LongAdder();
+    private final LongAdder rowsSwept = new LongAdder();
+    private final LongAdder rowsDroppedOnSessionEnd = new LongAdder();
+    private final AtomicLong lastSweepNanos = new AtomicLong();
+    private final LongAdder totalSweepNanos = new LongAdder();
+
+    @Autowired
+    public GuestCartSweeper(CartItemRepository cartItemRepository,
+                            GuestCartStore guestCartStore,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${store.cart.guest.sweep-max-age:${server.servlet.session.timeout:30m}}") Duration maxAge,
+                            @Value("${store.cart.guest.sweep-batch-size:500}") int batchSize,
+                            @Value("${store.cart.guest.sweep-pause:PT0.2S}") Duration pause) {
+        this.cartItemRepository = cartItemRepository;
+        this.guestCartStore = guestCartStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    /**
+     * Deletes every abandoned guest row not written for the configured age, one batch per
+     * transaction.
+     *
+     * @return the number of rows deleted
+     */
+    @Scheduled(fixedDelayString = "${store.cart.guest.sweep-interval:PT5M}",
+               initialDelayString = "${store.cart.guest.sweep-interval:PT5M}")
+    public int sweep() {
+        long started = System.nanoTime();
+        LocalDateTime touchedBefore = LocalDateTime.now().minus(maxAge);
+        int total = 0;
+        List<GuestRow> rows = cartItemRepository.findStaleGuestRows(touchedBefore, batchSize);
+        while (!rows.isEmpty()) {
+            Map<String, Boolean> held = new HashMap<>();
+            List<Long> abandoned = new ArrayList<>();
+            List<Long> live = new ArrayList<>();
+            for (GuestRow row : rows) {
+                if (held.computeIfAbsent(row.sessionId(), guestCartStore::holds)) {
+                    live.add(row.id());
+                } else {
+                    abandoned.add(row.id());
+                }
+            }
+            total += transactionTemplate.execute(status -> {
+                // Touched so they drop out of the next batch; the store rewrites them when they change
+                cartItemRepository.touchRows(live);
+                return cartItemRepository.deleteRows(abandoned);
+            });
+            if (rows.size() < batchSize || !pause()) {
+                break;
+            }
+            rows = cartItemRepository.findStaleGuestRows(touchedBefore, batchSize);
+        }
+
+        long elapsed = System.nanoTime() - started;
+        sweeps.increment();
+        rowsSwept.add(total);
+        lastSweepNanos.set(elapsed);
+        totalSweepNanos.add(elapsed);
+        if (total > 0) {
+            log.info("Swept {} abandoned guest cart rows last written before {} in {} ms",
+                    total, touchedBefore, elapsed / 1_000_000);
+        }
+        return total;
+    }
+
+    public GuestCartSweepStats getStats() {
+        return new GuestCartSweepStats(sweeps.sum(), rowsSwept.sum(), rowsDroppedOnSessionEnd.sum(),
+                Duration.ofNanos(lastSweepNanos.get()), Duration.ofNanos(totalSweepNanos.sum()));
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        String sessionId = event.getSession().getId();
+        String persistedSessionId = guestCartStore.discard(sessionId);
+        if (persistedSessionId == null) {
+            return;
+        }
+        try {
+            int deleted = transactionTemplate.execute(status -> cartItemRepository.deleteGuestCart(persistedSessionId));
+            rowsDroppedOnSessionEnd.add(deleted);
+        } catch (RuntimeException e) {
+            log.warn("Could not delete guest cart rows for session {}; the sweep will", sessionId, e);
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.sportsstore.service;
+
+import com.sportsstore.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds stock for shoppers between opening the checkout page and placing the order.
+ * <p>
+ * Available stock is counted in memory, one counter per product, so a flash sale is decided
+ * by compare-and-set on those counters and shoppers who miss out are turned away before
+ * they reach the database. A hold lasts for {@code store.reservation.hold-ttl}; holds that
+ * are not turned into an order are handed back by a timer wheel.
+ * <p>
+ * The database stays authoritative: orders still take stock with a conditional update, and
+ * the counters are periodically reset from the stored stock minus what is currently held.
+ */
+@Service
+public class InventoryReservationService {
+
+    static final int RECONCILE_BATCH_SIZE = 500;
+
+    private static final int WHEEL_SLOTS = 512;
+
+    private final ProductRepository productRepository;
+    private final Duration holdTtl;
+
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holdsByUser = new ConcurrentHashMap<>();
+    private final TimerWheel<Hold> expiryWheel;
+
+    @Autowired
+    public InventoryReservationService(ProductRepository productRepository,
+                                       @Value("${store.reservation.hold-ttl:PT10M}") Duration holdTtl,
+                                       @Value("${store.reservation.tick:PT1S}") Duration tick) {
+        this.productRepository = productRepository;
+        this.holdTtl = holdTtl;
+        this.expiryWheel = new TimerWheel<>(tick, WHEEL_SLOTS, System.currentTimeMillis());
+    }
+
+    /**
+     * Reserves the quantities for the user, replacing any hold they already had.
+     *
+     * @return false, with nothing held, if any product does not have enough available
+     */
+    public boolean hold(Long userId, Map<Long, Integer> quantitiesByProductId) {
+        long now = System.currentTimeMillis();
+        Hold hold = holdsByUser.compute(userId, (id, existing) -> {
+            if (existing != null) {
+                release(existing);
+            }
+            return take(quantitiesByProductId)
+                    ? new Hold(id, new TreeMap<>(quantitiesByProductId), now + holdTtl.toMillis())
+                    : null;
+        });
+        if (hold == null) {
+            return false;
+        }
+        expiryWheel.schedule(hold, hold.expiresAt());
+        return true;
+    }
+
+    /**
+     * Makes sure the user holds exactly these quantities before their order is written,
+     * taking a new hold if theirs has expired or no longer matches the cart. If the order's
+     * transaction rolls back, the hold is released.
+     */
+    public void claim(Long userId, Map<Long, Integer> quantitiesByProductId) {
+        Hold hold = holdsByUser.get(userId);
+        if (hold == null || !hold.quantities().equals(quantitiesByProductId)
+                || hold.expiresAt() <= System.currentTimeMillis()) {
+            if (!hold(userId, quantitiesByProductId)) {
+                throw new IllegalStateException("Some items are out of stock");
+            }
+            hold = holdsByUser.get(userId);
+        }
+        releaseOnRollback(hold);
+    }
+
+    public void release(Long userId) {
+        Hold hold = holdsByUser.remove(userId);
+        if (hold != null) {
+            release(hold);
+        }
+    }
+
+    public int getAvailable(Long productId) {
+        StockCounter counter = counters.get(productId);
+        return counter != null ? counter.available.get() : 0;
+    }
+
+    public Duration getHoldTtl() {
+        return holdTtl;
+    }
+
+    // The stock is now gone from the database too, so the hold is dropped without giving it back
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        Hold hold = holdsByUser.remove(event.getUserId());
+        if (hold != null) {
+            hold.quantities().forEach((productId, quantity) -> {
+                StockCounter counter = counters.get(productId);
+                if (counter != null) {
+                    counter.held.addAndGet(-quantity);
+                }
+            });
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case SAVED:
+                counters.computeIfAbsent(event.getProductId(), id -> new StockCounter()).reset(event.getStockQuantity());
+                break;
+            case DELETED:
+                counters.remove(event.getProductId());
+                break;
+            case STOCK_CHANGED:
+                // Orders take stock that was already held, so the counter has accounted for it
+                break;
+        }
+    }
+
+    @Scheduled(fixedRateString = "${store.reservation.tick:PT1S}")
+    public void expireHolds() {
+        expireHolds(System.currentTimeMillis());
+    }
+
+    void expireHolds(long now) {
+        for (Hold hold : expiryWheel.advance(now)) {
+            // A hold that was replaced or ordered in the meantime is no longer in the map
+            if (holdsByUser.remove(hold.userId(), hold)) {
+                release(hold);
+            }
+        }
+    }
+
+    /**
+     * Resets every counter to the stored stock minus what is held, walking the products table
+     * in batches of {@value #RECONCILE_BATCH_SIZE}. A counter can drift while an order commits
+     * between the read and the reset; the conditional update at checkout still prevents
+     * overselling, and the next pass corrects it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${store.reservation.reconcile-interval:PT1M}",
+               initialDelayString = "${store.reservation.reconcile-interval:PT1M}")
+    public void reconcile() {
+        Set<Long> seen = new HashSet<>();
+        long afterId = 0;
+        Map<Long, Integer> batch;
+        do {
+            batch = productRepository.findStockQuantitiesAfter(afterId, RECONCILE_BATCH_SIZE);
+            for (Map.Entry<Long, Integer> entry : batch.entrySet()) {
+                counters.computeIfAbsent(entry.getKey(), id -> new StockCounter()).reset(entry.getValue());
+                seen.add(entry.getKey());
+                afterId = entry.getKey();
+            }
+        } while (batch.size() == RECONCILE_BATCH_SIZE);
+
+        counters.keySet().retainAll(seen);
+    }
+
+    // An order that rolls back takes no stock, so its hold is handed back now rather than at expiry
+    private void releaseOnRollback(Hold hold) {
+        if (hold == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && holdsByUser.remove(hold.userId(), hold)) {
+                    release(hold);
+                }
+            }
+        });
+    }
+
+    // Takes products in id order and puts back what was taken if any of them is short
+    private boolean take(Map<Long, Integer> quantitiesByProductId) {
+        Map<StockCounter, Integer> taken = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantitiesByProductId).entrySet()) {
+            StockCounter counter = counters.get(entry.getKey());
+            if (counter == null || !counter.tryTake(entry.getValue())) {
+                taken.forEach(StockCounter::giveBack);
+                return false;
+            }
+            taken.put(counter, entry.getValue());
+        }
+        return true;
+    }
+
+    private void release(Hold hold) {
+        hold.quantities().forEach((productId, quantity) -> {
+            StockCounter counter = counters.get(productId);
+            if (counter != null) {
+                counter.giveBack(quantity);
+            }
+        });
+    }
+
+    // Compared by identity, so an expiring hold never removes a newer one with the same contents
+    private static final class Hold {
+        private final Long userId;
+        private final Map<Long, Integer> quantities;
+        private final long expiresAt;
+
+        Hold(Long userId, Map<Long, Integer> quantities, long expiresAt) {
+            this.userId = userId;
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+        }
+
+        Long userId() {
+            return userId;
+        }
+
+        Map<Long, Integer> quantities() {
+            return quantities;
+        }
+
+        long expiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static final class StockCounter {
+        final AtomicInteger available = new AtomicInteger();
+        final AtomicInteger held = new AtomicInteger();
+
+        boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            held.addAndGet(quantity);
+            return true;
+        }
+
+        void giveBack(int quantity) {
+            held.addAndGet(-quantity);
+            available.addAndGet(quantity);
+        }
+
+        void reset(int stockQuantity) {
+            available.set(stockQuantity - held.get());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.sportsstore.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Encodes keyset scroll positions over products and orders as opaque, URL-safe cursor strings.
+ * A cursor looks like {@code f.name:U3BhbGRpbmc.id:MTI}: the direction followed by
+ * each key with its Base64 encoded value.
+ */
+public final class KeysetCursor {
+
+    private static final char FORWARD = 'f';
+    private static final char BACKWARD = 'b';
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(KeysetScrollPosition position) {
+        StringJoiner cursor = new StringJoiner(".");
+        cursor.add(String.valueOf(position.scrollsForward() ? FORWARD : BACKWARD));
+        for (Map.Entry<String, Object> key : position.getKeys().entrySet()) {
+            String value = key.getValue() instanceof BigDecimal decimal
+                    ? decimal.toPlainString()
+                    : String.valueOf(key.getValue());
+            cursor.add(key.getKey() + ":" + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return cursor.toString();
+    }
+
+    /**
+     * Returns the position described by the cursor, or the first page when the cursor
+     * is missing or cannot be read.
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        try {
+            String[] parts = cursor.split("\\.");
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 1; i < parts.length; i++) {
+                String[] keyValue = parts[i].split(":", 2);
+                String value = new String(Base64.getUrlDecoder().decode(keyValue[1]), StandardCharsets.UTF_8);
+                keys.put(keyValue[0], parseValue(keyValue[0], value));
+            }
+
+            if (keys.isEmpty()) {
+                return ScrollPosition.keyset();
+            }
+            return parts[0].charAt(0) == BACKWARD ? ScrollPosition.backward(keys) : ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            return ScrollPosition.keyset();
+        }
+    }
+
+    private static Object parseValue(String key, String value) {
+        switch (key) {
+            case "id":
+                return Long.valueOf(value);
+            case "price":
+                return new BigDecimal(value);
+            case "name":
+                return value;
+            case "orderDate":
+                return LocalDateTime.parse(value);
+            default:
+                throw new IllegalArgumentException("Unknown cursor key: " + key);
+        }
+    }
+}
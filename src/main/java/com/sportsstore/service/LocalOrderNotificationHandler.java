@@ -0,0 +1,31 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stands in for the confirmation email and warehouse notification until those services exist,
+ * so the outbox pipeline can run end to end without any external system.
+ */
+@Component
+public class LocalOrderNotificationHandler implements OrderEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalOrderNotificationHandler.class);
+
+    private final AtomicInteger handledCount = new AtomicInteger();
+
+    @Override
+    public void handle(OrderEvent event) {
+        log.info("Order #{} placed by user {}: confirmation and warehouse notification sent",
+                event.getOrderId(), event.getUserId());
+        handledCount.incrementAndGet();
+    }
+
+    public int getHandledCount() {
+        return handledCount.get();
+    }
+}
@@ -0,0 +1,215 @@
+package com.sportsstore.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to {@code int} counts, with no boxing.
+ * A key whose count drops to zero is removed, so the map only holds non-zero counts.
+ * Not thread-safe.
+ */
+class LongIntHashMap {
+
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private int[] values;
+    // A slot is empty when its value is zero
+    private int size;
+
+    LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds {@code delta} to the count for {@code key} and returns the new count.
+     */
+    int add(long key, int delta) {
+        if (delta == 0) {
+            return get(key);
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                int value = values[slot] + delta;
+                if (value == 0) {
+                    removeAt(slot);
+                } else {
+                    values[slot] = value;
+                }
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(values, 0);
+            size = 0;
+        }
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code k} keys with the highest counts, highest first and lower keys first
+     * on ties. Runs in O(n log k) with a bounded min-heap.
+     */
+    long[] topKeys(int k) {
+        int limit = Math.min(k, size);
+        long[] heapKeys = new long[limit];
+        int[] heapValues = new int[limit];
+        int heapSize = 0;
+        for (int slot = 0; slot < keys.length && limit > 0; slot++) {
+            int value = values[slot];
+            if (value == 0) {
+                continue;
+            }
+            long key = keys[slot];
+            if (heapSize < limit) {
+                heapKeys[heapSize] = key;
+                heapValues[heapSize] = value;
+                siftUp(heapKeys, heapValues, heapSize++);
+            } else if (ranksBefore(key, value, heapKeys[0], heapValues[0])) {
+                heapKeys[0] = key;
+                heapValues[0] = value;
+                siftDown(heapKeys, heapValues, heapSize);
+            }
+        }
+
+        // Popping the min-heap yields the weakest first, so fill from the back
+        long[] top = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            top[i] = heapKeys[0];
+            heapKeys[0] = heapKeys[i];
+            heapValues[0] = heapValues[i];
+            siftDown(heapKeys, heapValues, i);
+        }
+        return top;
+    }
+
+    private static boolean ranksBefore(long key, int value, long otherKey, int otherValue) {
+        return value != otherValue ? value > otherValue : key < otherKey;
+    }
+
+    // The heap root is the entry that ranks last
+    private static void siftUp(long[] heapKeys, int[] heapValues, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksBefore(heapKeys[parent], heapValues[parent], heapKeys[index], heapValues[index])) {
+                return;
+            }
+            swap(heapKeys, heapValues, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heapKeys, int[] heapValues, int heapSize) {
+        int index = 0;
+        while (true) {
+            int weakest = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < heapSize; child++) {
+                if (ranksBefore(heapKeys[weakest], heapValues[weakest], heapKeys[child], heapValues[child])) {
+                    weakest = child;
+                }
+            }
+            if (weakest == index) {
+                return;
+            }
+            swap(heapKeys, heapValues, index, weakest);
+            index = weakest;
+        }
+    }
+
+    private static void swap(long[] heapKeys, int[] heapValues, int i, int j) {
+        long key = heapKeys[i];
+        heapKeys[i] = heapKeys[j];
+        heapKeys[j] = key;
+        int value = heapValues[i];
+        heapValues[i] = heapValues[j];
+        heapValues[j] = value;
+    }
+
+    // Backward-shift deletion keeps every probe chain unbroken without tombstones
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        values[slot] = 0;
+        size--;
+        int next = (slot + 1) & mask;
+        while (values[next] != 0) {
+            int home = slotOf(keys[next], mask);
+            // Move the entry back if its home slot is not between the hole and its current slot
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                values[next] = 0;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int slotOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,78 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.OrderStatus;
+import com.sportsstore.repository.ArchivedOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Moves old, finished orders out of the live {@code orders} and {@code order_items} tables into
+ * their archive tables, so the live tables and their indexes only hold recent and open orders.
+ * <p>
+ * Orders qualify once they are in a final status and older than the configured age. They are
+ * moved in small batches, each in its own short transaction, so no lock is held for long and a
+ * stopped run just carries on next time. Order lookups and order history read the archive too,
+ * so customers see no difference.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    // Orders that can no longer change status
+    private static final Set<OrderStatus> FINAL_STATUSES = Arrays.stream(OrderStatus.values())
+            .filter(status -> status.nextStatuses().isEmpty())
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(OrderStatus.class)));
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration minAge;
+    private final int batchSize;
+
+    @Autowired
+    public OrderArchiveService(ArchivedOrderRepository archivedOrderRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${store.archive.min-age:90d}") Duration minAge,
+                               @Value("${store.archive.batch-size:500}") int batchSize) {
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Archives every qualifying order, one batch per transaction.
+     *
+     * @return the number of orders archived
+     */
+    @Scheduled(fixedDelayString = "${store.archive.interval:PT1H}",
+               initialDelayString = "${store.archive.interval:PT1H}")
+    public int archive() {
+        LocalDateTime placedBefore = LocalDateTime.now().minus(minAge);
+        int total = 0;
+        int archived;
+        do {
+            archived = transactionTemplate.execute(status ->
+                    archivedOrderRepository.archiveOrders(FINAL_STATUSES, placedBefore, batchSize));
+            total += archived;
+        } while (archived == batchSize);
+
+        if (total > 0) {
+            log.info("Archived {} orders placed before {}", total, placedBefore);
+        }
+        return total;
+    }
+}
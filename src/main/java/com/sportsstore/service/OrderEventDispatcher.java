@@ -0,0 +1,198 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.OrderEvent;
+import com.sportsstore.repository.OrderEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers order events from the outbox table to every {@link OrderEventHandler}.
+ * <p>
+ * Each poll claims a batch of due events in a short transaction and pushes their next attempt
+ * out by the lease time, so no other dispatcher picks them up while they are in flight. The
+ * events are then handled on a bounded pool of workers outside any transaction. A delivered
+ * event is marked as such; a failed one is retried with exponential backoff until it runs out
+ * of attempts. If the application stops mid-delivery the lease simply runs out and the event
+ * is claimed again.
+ * <p>
+ * Delivered events are kept for {@code store.outbox.purge-age} and then deleted on a schedule,
+ * one batch per transaction, so the outbox only ever holds recent and undelivered events.
+ * Failed events are kept for someone to look at.
+ */
+@Component
+public class OrderEventDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OrderEventRepository orderEventRepository;
+    private final List<OrderEventHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration purgeAge;
+    private final int purgeBatchSize;
+    private final ThreadPoolExecutor workers;
+
+    @Autowired
+    public OrderEventDispatcher(OrderEventRepository orderEventRepository,
+                                List<OrderEventHandler> handlers,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${store.outbox.batch-size:50}") int batchSize,
+                                @Value("${store.outbox.workers:4}") int workerCount,
+                                @Value("${store.outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${store.outbox.lease:PT5M}") Duration lease,
+                                @Value("${store.outbox.initial-backoff:PT1S}") Duration initialBackoff,
+                                @Value("${store.outbox.max-backoff:PT10M}") Duration maxBackoff,
+                                @Value("${store.outbox.purge-age:P1D}") Duration purgeAge,
+                                @Value("${store.outbox.purge-batch-size:500}") int purgeBatchSize) {
+        this.orderEventRepository = orderEventRepository;
+        this.handlers = handlers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.purgeAge = purgeAge;
+        this.purgeBatchSize = purgeBatchSize;
+
+        // The queue holds one batch, and a full queue makes the dispatcher handle the event itself
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), task -> {
+                    Thread thread = new Thread(task, "order-events-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Delivers due events batch by batch until none are left.
+     *
+     * @return the number of events delivered
+     */
+    @Scheduled(fixedDelayString = "${store.outbox.poll-interval:PT1S}",
+               initialDelayString = "${store.outbox.poll-interval:PT1S}")
+    public int dispatch() {
+        int delivered = 0;
+        List<OrderEvent> batch;
+        do {
+            batch = claim();
+            delivered += deliver(batch);
+        } while (batch.size() == batchSize);
+        return delivered;
+    }
+
+    /**
+     * Deletes events delivered longer ago than the purge age, one batch per transaction.
+     *
+     * @return the number of events deleted
+     */
+    @Scheduled(fixedDelayString = "${store.outbox.purge-interval:PT1H}",
+               initialDelayString = "${store.outbox.purge-interval:PT1H}")
+    public int purgeDelivered() {
+        LocalDateTime deliveredBefore = LocalDateTime.now().minus(purgeAge);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = orderEventRepository.findIdsDeliveredBefore(OrderEvent.Status.DELIVERED,
+                        deliveredBefore, PageRequest.of(0, purgeBatchSize));
+                return ids.isEmpty() ? 0 : orderEventRepository.deleteByIdIn(ids);
+            });
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private List<OrderEvent> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OrderEvent> due = orderEventRepository.findDueForUpdate(OrderEvent.Status.PENDING, now, PageRequest.of(0, batchSize));
+            for (OrderEvent event : due) {
+                event.setNextAttemptAt(now.plus(lease));
+            }
+            return due;
+        });
+    }
+
+    private int deliver(List<OrderEvent> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Exception> failures = new HashMap<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(batch.size());
+        for (OrderEvent event : batch) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    for (OrderEventHandler handler : handlers) {
+                        handler.handle(event);
+                    }
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.put(event.getId(), e);
+                    }
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (OrderEvent event : orderEventRepository.findAllById(batch.stream().map(OrderEvent::getId).toList())) {
+                Exception failure = failures.get(event.getId());
+                if (failure == null) {
+                    event.setStatus(OrderEvent.Status.DELIVERED);
+                    event.setDeliveredAt(now);
+                } else {
+                    recordFailure(event, failure, now);
+                }
+            }
+        });
+        return batch.size() - failures.size();
+    }
+
+    private void recordFailure(OrderEvent event, Exception failure, LocalDateTime now) {
+        event.setAttempts(event.getAttempts() + 1);
+        String message = failure.getClass().getSimpleName() + ": " + failure.getMessage();
+        event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(OrderEvent.Status.FAILED);
+        } else {
+            event.setNextAttemptAt(now.plus(backoff(event.getAttempts())));
+        }
+    }
+
+    // initialBackoff, doubled after every failed attempt up to maxBackoff
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
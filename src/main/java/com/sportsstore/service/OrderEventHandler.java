@@ -0,0 +1,13 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.OrderEvent;
+
+/**
+ * Receives order events from the outbox. Delivery is at least once: an event is handed to
+ * every handler again if any of them fails, or if the application stops mid-delivery, so
+ * handlers must tolerate seeing the same event twice.
+ */
+public interface OrderEventHandler {
+
+    void handle(OrderEvent event) throws Exception;
+}
@@ -0,0 +1,76 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Order;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a customer's order history, newest first, with cursors for the neighbouring pages.
+ */
+public class OrderHistoryPage {
+
+    private final List<Order> orders;
+    private final String olderCursor;
+    private final String newerCursor;
+
+    public OrderHistoryPage(List<Order> orders, String olderCursor, String newerCursor) {
+        this.orders = orders;
+        this.olderCursor = olderCursor;
+        this.newerCursor = newerCursor;
+    }
+
+    /**
+     * Builds the page from its orders, newest first, and whether more orders lie beyond them in
+     * the direction the page was read.
+     */
+    static OrderHistoryPage of(List<Order> orders, boolean more, KeysetScrollPosition requested) {
+        if (orders.isEmpty()) {
+            return new OrderHistoryPage(Collections.emptyList(), null, null);
+        }
+
+        // Same rules as ProductPage: when paging back, "more" means more newer orders
+        boolean hasOlder = !requested.scrollsForward() || more;
+        boolean hasNewer = requested.scrollsForward() ? !requested.isInitial() : more;
+
+        String olderCursor = hasOlder
+                ? KeysetCursor.encode(ScrollPosition.forward(keysOf(orders.get(orders.size() - 1))))
+                : null;
+        String newerCursor = hasNewer
+                ? KeysetCursor.encode(ScrollPosition.backward(keysOf(orders.get(0))))
+                : null;
+
+        return new OrderHistoryPage(orders, olderCursor, newerCursor);
+    }
+
+    private static Map<String, Object> keysOf(Order order) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("orderDate", order.getOrderDate());
+        keys.put("id", order.getId());
+        return keys;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public String getOlderCursor() {
+        return olderCursor;
+    }
+
+    public String getNewerCursor() {
+        return newerCursor;
+    }
+
+    public boolean hasOlder() {
+        return olderCursor != null;
+    }
+
+    public boolean hasNewer() {
+        return newerCursor != null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Published by {@link OrderService} when an order has been placed. Carries a compact copy of
+ * the order lines so listeners never have to walk the entity graph after the transaction commits.
+ */
+public class OrderPlacedEvent {
+
+    public record Line(Long productId, int quantity, BigDecimal unitPrice) {
+    }
+
+    private final Long orderId;
+    private final Long userId;
+    private final LocalDateTime orderDate;
+    private final BigDecimal totalAmount;
+    private final List<Line> lines;
+
+    public OrderPlacedEvent(Long orderId, Long userId, LocalDateTime orderDate, BigDecimal totalAmount, List<Line> lines) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.orderDate = orderDate;
+        this.totalAmount = totalAmount;
+        this.lines = List.copyOf(lines);
+    }
+
+    public static OrderPlacedEvent of(Order order) {
+        List<Line> lines = order.getOrderItems().stream()
+                .map(OrderPlacedEvent::toLine)
+                .collect(Collectors.toList());
+        return new OrderPlacedEvent(order.getId(), order.getUser().getId(), order.getOrderDate(),
+                order.getTotalAmount().getAmount(), lines);
+    }
+
+    private static Line toLine(OrderItem item) {
+        return new Line(item.getProduct().getId(), item.getQuantity(), item.getPriceAtPurchase().getAmount());
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+}
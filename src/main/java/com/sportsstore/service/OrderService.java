@@ -1,66 +1,133 @@
 package com.sportsstore.service;
 
+import com.sportsstore.model.ArchivedOrder;
 import com.sportsstore.model.CartItem;
+import com.sportsstore.model.Money;
 import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderEvent;
 import com.sportsstore.model.OrderItem;
+import com.sportsstore.model.OrderSnapshot;
+import com.sportsstore.model.OrderStatus;
 import com.sportsstore.model.User;
+import com.sportsstore.repository.ArchivedOrderRepository;
+import com.sportsstore.repository.OrderEventRepository;
 import com.sportsstore.repository.OrderRepository;
+import com.sportsstore.repository.OrderStatusRepository.StatusRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
 
 @Service
 @Transactional
 public class OrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+
+    // The id breaks ties between orders placed in the same instant
+    private static final Sort ORDER_HISTORY_SORT = Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("id"));
+    private static final Comparator<Order> NEWEST_FIRST =
+            Comparator.comparing(Order::getOrderDate).thenComparing(Order::getId).reversed();
+
     private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderEventRepository orderEventRepository;
     private final ProductService productService;
     private final CartService cartService;
+    private final InventoryReservationService inventoryReservationService;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int statusBatchSize;
+    private final int snapshotBackfillBatchSize;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository, ProductService productService, CartService cartService) {
+    public OrderService(OrderRepository orderRepository, ArchivedOrderRepository archivedOrderRepository,
+                        OrderEventRepository orderEventRepository,
+                        ProductService productService, CartService cartService,
+                        InventoryReservationService inventoryReservationService,
+                        SalesRollupService salesRollupService,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${store.orders.status-batch-size:1000}") int statusBatchSize,
+                        @Value("${store.orders.snapshot-backfill-batch-size:500}") int snapshotBackfillBatchSize) {
         this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderEventRepository = orderEventRepository;
         this.productService = productService;
         this.cartService = cartService;
+        this.inventoryReservationService = inventoryReservationService;
+        this.salesRollupService = salesRollupService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.statusBatchSize = statusBatchSize;
+        this.snapshotBackfillBatchSize = snapshotBackfillBatchSize;
     }
 
-    public Order createOrder(User user, List<CartItem> cartItems, String shippingAddress, String shippingCity, String shippingZip) {
-        // Validate cart
-        if (!cartService.validateCart(cartItems)) {
-            throw new IllegalStateException("Some items are out of stock");
-        }
+    public Order createOrder(User user, List<CartItem> cartItems, String shippingAddress, String shippingCity, String shippingZip,
+                             String idempotencyKey) {
+        // Turn away shoppers whose stock is gone before touching the products table; sorted
+        // by id so that concurrent orders lock product rows in the same order
+        Map<Long, Integer> quantitiesByProductId = cartService.getQuantitiesByProduct(cartItems);
+        inventoryReservationService.claim(user.getId(), quantitiesByProductId);
 
         // Calculate total
-        BigDecimal total = cartService.calculateTotal(cartItems);
+        Money total = cartService.calculateTotal(cartItems);
 
         // Create order
         Order order = new Order(user, total, shippingAddress, shippingCity, shippingZip);
-        order.setStatus("CONFIRMED");
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setIdempotencyKey(idempotencyKey);
+        order.setRolledUp(true);
 
-        // Create order items and reduce stock
+        // Create order items
         for (CartItem cartItem : cartItems) {
             OrderItem orderItem = new OrderItem(
                     order,
                     cartItem.getProduct(),
                     cartItem.getQuantity(),
-                    cartItem.getProduct().getPrice()
+                    Money.of(cartItem.getProduct().getPrice())
             );
             order.addOrderItem(orderItem);
-
-            // Reduce stock
-            productService.reduceStock(cartItem.getProduct().getId(), cartItem.getQuantity());
         }
+        order.setSnapshot(OrderSnapshot.of(order.getOrderItems()));
 
-        // Save order
+        // Throws if any product is short, rolling back the whole order
+        productService.reduceStock(quantitiesByProductId);
+
+        // Save order, along with the outbox entry that drives emails and warehouse notifications
         Order savedOrder = orderRepository.save(order);
+        orderEventRepository.save(OrderEvent.orderPlaced(savedOrder));
 
         // Clear cart
         cartService.clearUserCart(user);
 
+        // Last, so the shared rollup rows stay locked for as short a time as possible
+        salesRollupService.recordOrderPlaced(savedOrder);
+
+        eventPublisher.publishEvent(OrderPlacedEvent.of(savedOrder));
+
         return savedOrder;
     }
 
@@ -68,22 +135,167 @@ public class OrderService {
         return orderRepository.findByUserOrderByOrderDateDesc(user);
     }
 
+    /**
+     * Returns one page of the user's orders, newest first. Live and archived orders are read
+     * with the same keyset and merged, so the history runs on past the archival age without a
+     * seam. Items come from each order's snapshot, so a page costs two statements.
+     */
+    @Transactional(readOnly = true)
+    public OrderHistoryPage findOrderHistory(User user, String cursor, int pageSize) {
+        KeysetScrollPosition position = KeysetCursor.decode(cursor);
+        Window<Order> live = orderRepository.findByUser(user, position, ORDER_HISTORY_SORT, Limit.of(pageSize));
+        Window<ArchivedOrder> archived = archivedOrderRepository.findByUserId(user.getId(), position,
+                ORDER_HISTORY_SORT, Limit.of(pageSize));
+
+        List<Order> orders = new ArrayList<>(live.getContent());
+        archived.forEach(order -> orders.add(order.toOrder()));
+        orders.sort(NEWEST_FIRST);
+
+        // Keep the orders nearest the cursor: the newest when paging forward, the oldest when paging back
+        boolean more = live.hasNext() || archived.hasNext() || orders.size() > pageSize;
+        List<Order> page = orders.size() <= pageSize ? orders
+                : position.scrollsForward() ? orders.subList(0, pageSize)
+                : orders.subList(orders.size() - pageSize, orders.size());
+        return OrderHistoryPage.of(page, more, position);
+    }
+
+    /**
+     * Finds a live order, or else an archived one as a detached, read-only copy without items.
+     */
     public Optional<Order> findById(Long id) {
-        return orderRepository.findById(id);
+        return orderRepository.findById(id)
+                .or(() -> archivedOrderRepository.findById(id).map(ArchivedOrder::toOrder));
+    }
+
+    /**
+     * Finds one of the user's own orders, live or archived, for display from its snapshot.
+     * Reads a single order row; neither the user nor the items are loaded.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Order> findPlacedOrder(Long id, String username) {
+        return orderRepository.findByIdAndUserUsername(id, username)
+                .or(() -> archivedOrderRepository.findByIdAndUserUsername(id, username).map(ArchivedOrder::toOrder));
+    }
+
+    /**
+     * Stores a snapshot for every live and archived order placed before snapshots existed, one
+     * batch per transaction. The snapshot takes product names as they are now, the closest
+     * record left of what was bought. Once every order has one this finds nothing.
+     *
+     * @return the number of orders given a snapshot
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int backfillSnapshots() {
+        int total = 0;
+        int filled;
+        do {
+            filled = transactionTemplate.execute(status -> {
+                List<Order> batch = orderRepository.findBySnapshotIsNullOrderById(Limit.of(snapshotBackfillBatchSize));
+                if (!batch.isEmpty()) {
+                    for (Order order : orderRepository.findWithItemsByIdIn(batch.stream().map(Order::getId).toList())) {
+                        orderRepository.fillSnapshot(order.getId(), OrderSnapshot.of(order.getOrderItems()));
+                    }
+                }
+                return batch.size();
+            });
+            total += filled;
+        } while (filled == snapshotBackfillBatchSize);
+
+        do {
+            filled = transactionTemplate.execute(status -> {
+                List<ArchivedOrder> batch =
+                        archivedOrderRepository.findBySnapshotIsNullOrderById(Limit.of(snapshotBackfillBatchSize));
+                if (!batch.isEmpty()) {
+                    Map<Long, OrderSnapshot> snapshots = new HashMap<>();
+                    List<Long> ids = batch.stream().map(ArchivedOrder::getId).toList();
+                    for (ArchivedOrder order : archivedOrderRepository.findWithItemsByIdIn(ids)) {
+                        snapshots.put(order.getId(), OrderSnapshot.ofArchived(order.getItems()));
+                    }
+                    archivedOrderRepository.fillArchivedSnapshots(snapshots);
+                }
+                return batch.size();
+            });
+            total += filled;
+        } while (filled == snapshotBackfillBatchSize);
+
+        if (total > 0) {
+            log.info("Backfilled snapshots for {} orders", total);
+        }
+        return total;
     }
 
     public List<Order> findAll() {
         return orderRepository.findAll();
     }
 
-    public List<Order> findByStatus(String status) {
+    public List<Order> findByStatus(OrderStatus status) {
         return orderRepository.findByStatus(status);
     }
 
-    public void updateOrderStatus(Long orderId, String status) {
-        Order order = orderRepository.findById(orderId)
+    public void updateOrderStatus(Long orderId, OrderStatus status) {
+        Order order = orderRepository.findForUpdateById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        OrderStatus previousStatus = order.getStatus();
+        if (!previousStatus.canMoveTo(status)) {
+            throw new IllegalStateException("Order #" + orderId + " cannot move from " + previousStatus + " to " + status);
+        }
         order.setStatus(status);
         orderRepository.save(order);
+        salesRollupService.recordStatusChange(order, previousStatus);
+    }
+
+    /**
+     * Moves every listed order that is in {@code from} to {@code to}, reporting the outcome for
+     * each id. Orders are handled in id order, in batches that each commit on their own: one
+     * statement locks the batch and reads its statuses, and one guarded UPDATE moves it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public OrderStatusChange updateOrderStatuses(Collection<Long> orderIds, OrderStatus from, OrderStatus to) {
+        if (!from.canMoveTo(to)) {
+            throw new IllegalArgumentException("Orders cannot move from " + from + " to " + to);
+        }
+
+        List<Long> sortedIds = new ArrayList<>(new TreeSet<>(orderIds));
+        OrderStatusChange change = new OrderStatusChange(from, to);
+        for (int start = 0; start < sortedIds.size(); start += statusBatchSize) {
+            List<Long> batch = sortedIds.subList(start, Math.min(start + statusBatchSize, sortedIds.size()));
+            try {
+                change.addAll(transactionTemplate.execute(status -> moveBatch(batch, from, to)));
+            } catch (RuntimeException e) {
+                log.warn("Could not move orders {} to {} from {} to {}", batch.get(0), batch.get(batch.size() - 1), from, to, e);
+                change.addFailed(batch);
+            }
+        }
+        return change;
+    }
+
+    private OrderStatusChange moveBatch(List<Long> orderIds, OrderStatus from, OrderStatus to) {
+        OrderStatusChange change = new OrderStatusChange(from, to);
+        Map<Long, StatusRow> statuses = orderRepository.lockStatuses(orderIds);
+        List<Long> movable = new ArrayList<>(orderIds.size());
+        List<Long> rolledUp = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            StatusRow row = statuses.get(orderId);
+            if (row == null) {
+                change.addNotFound(orderId);
+            } else if (row.status() != from) {
+                change.addSkipped(orderId, row.status());
+            } else {
+                movable.add(orderId);
+                if (row.rolledUp()) {
+                    rolledUp.add(orderId);
+                }
+            }
+        }
+
+        // The rows are locked, so every order that was in the from status is still there
+        int moved = orderRepository.moveStatus(movable, from, to);
+        if (moved != movable.size()) {
+            throw new IllegalStateException("Moved " + moved + " of " + movable.size() + " orders");
+        }
+        salesRollupService.recordStatusChanges(from, to, rolledUp);
+        change.addMoved(movable);
+        return change;
     }
 }
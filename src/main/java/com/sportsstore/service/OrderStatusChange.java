@@ -0,0 +1,80 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of moving a list of orders from one status to another, for every order id asked for.
+ * An order is either moved, not found, skipped because it is in another status, or failed
+ * because its batch could not be written.
+ */
+public class OrderStatusChange {
+
+    private final OrderStatus from;
+    private final OrderStatus to;
+    private final List<Long> moved = new ArrayList<>();
+    private final List<Long> notFound = new ArrayList<>();
+    private final Map<Long, OrderStatus> skipped = new TreeMap<>();
+    private final List<Long> failed = new ArrayList<>();
+
+    public OrderStatusChange(OrderStatus from, OrderStatus to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    void addMoved(List<Long> orderIds) {
+        moved.addAll(orderIds);
+    }
+
+    void addNotFound(Long orderId) {
+        notFound.add(orderId);
+    }
+
+    void addSkipped(Long orderId, OrderStatus currentStatus) {
+        skipped.put(orderId, currentStatus);
+    }
+
+    void addFailed(List<Long> orderIds) {
+        failed.addAll(orderIds);
+    }
+
+    void addAll(OrderStatusChange other) {
+        moved.addAll(other.moved);
+        notFound.addAll(other.notFound);
+        skipped.putAll(other.skipped);
+        failed.addAll(other.failed);
+    }
+
+    public OrderStatus getFrom() {
+        return from;
+    }
+
+    public OrderStatus getTo() {
+        return to;
+    }
+
+    public List<Long> getMoved() {
+        return moved;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    // Order id to the status the order was actually in
+    public Map<Long, OrderStatus> getSkipped() {
+        return skipped;
+    }
+
+    public List<Long> getFailed() {
+        return failed;
+    }
+
+    public int getRequested() {
+        return moved.size() + notFound.size() + skipped.size() + failed.size();
+    }
+}
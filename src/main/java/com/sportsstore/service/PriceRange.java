@@ -0,0 +1,50 @@
+package com.sportsstore.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Price buckets offered as a storefront filter. Each range includes its lower bound
+ * and excludes its upper bound.
+ */
+public enum PriceRange {
+
+    UNDER_25("under-25", "Under $25", null, new BigDecimal("25")),
+    FROM_25_TO_50("25-50", "$25 to $50", new BigDecimal("25"), new BigDecimal("50")),
+    FROM_50_TO_100("50-100", "$50 to $100", new BigDecimal("50"), new BigDecimal("100")),
+    FROM_100_TO_200("100-200", "$100 to $200", new BigDecimal("100"), new BigDecimal("200")),
+    OVER_200("200-plus", "$200 & Above", new BigDecimal("200"), null);
+
+    private final String key;
+    private final String label;
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    PriceRange(String key, String label, BigDecimal min, BigDecimal max) {
+        this.key = key;
+        this.label = label;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean contains(BigDecimal price) {
+        return (min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) < 0);
+    }
+
+    // Unknown or missing keys mean no price filter
+    public static PriceRange fromKey(String key) {
+        for (PriceRange range : values()) {
+            if (range.key.equalsIgnoreCase(key)) {
+                return range;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,242 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Best sellers over a sliding window and "frequently bought together" products, kept up to date
+ * from placed orders instead of grouping {@code order_items} on every page view.
+ * <p>
+ * Units sold are counted in a ring of time buckets covering {@code store.analytics.window}.
+ * When the clock moves into a new bucket, the bucket that falls out of the window is subtracted
+ * from the running totals and reused. Co-purchases are a sparse matrix holding, per product,
+ * how many orders also contained each other product. All counts live in primitive maps.
+ * <p>
+ * The top {@code store.analytics.top-k} ids are recomputed whenever their counts change and
+ * published as arrays that are never modified afterwards, so page views read them without
+ * taking the lock that order updates hold. On startup everything is rebuilt in one pass over
+ * the order history.
+ */
+@Service
+public class ProductAnalyticsService {
+
+    private static final long[] NONE = new long[0];
+
+    private final OrderRepository orderRepository;
+    private final CatalogService catalogService;
+    private final Duration window;
+    private final long bucketMillis;
+    private final int topK;
+
+    private final LongIntHashMap[] buckets;
+    private final LongIntHashMap windowTotals = new LongIntHashMap();
+    private long currentBucket;
+
+    // Product id to its row in the co-purchase matrix
+    private final LongIntHashMap rowIndex = new LongIntHashMap();
+    private final List<LongIntHashMap> coPurchases = new ArrayList<>();
+
+    // Replaced whole on rebuild; each list is replaced, never modified, when it changes
+    private volatile Map<Long, long[]> boughtTogether = new ConcurrentHashMap<>();
+    private volatile long[] bestSellerIds = NONE;
+    private volatile long bestSellersVersion;
+
+    @Autowired
+    public ProductAnalyticsService(OrderRepository orderRepository,
+                                   CatalogService catalogService,
+                                   @Value("${store.analytics.window:7d}") Duration window,
+                                   @Value("${store.analytics.bucket:PT1H}") Duration bucket,
+                                   @Value("${store.analytics.top-k:5}") int topK) {
+        this.orderRepository = orderRepository;
+        this.catalogService = catalogService;
+        this.window = window;
+        this.bucketMillis = bucket.toMillis();
+        this.topK = topK;
+        this.buckets = new LongIntHashMap[(int) Math.max(1, (window.toMillis() + bucketMillis - 1) / bucketMillis)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongIntHashMap();
+        }
+        this.currentBucket = System.currentTimeMillis() / bucketMillis;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * Changes whenever the best sellers or the product's own bought-together list change, so
+     * cached pages for the product can be revalidated. Sales that change neither leave it alone.
+     */
+    public String getVersion(long productId) {
+        return bestSellersVersion + ":" + Arrays.toString(boughtTogether.getOrDefault(productId, NONE));
+    }
+
+    /**
+     * Ids of the products with the most units sold in the window, best first.
+     */
+    public long[] getBestSellerIds() {
+        return bestSellerIds.clone();
+    }
+
+    /**
+     * Ids of the products most often ordered together with {@code productId}, most often first.
+     */
+    public long[] getBoughtTogetherIds(long productId) {
+        return boughtTogether.getOrDefault(productId, NONE).clone();
+    }
+
+    public List<CatalogProduct> getBestSellers() {
+        return inStock(bestSellerIds);
+    }
+
+    public List<CatalogProduct> getBoughtTogether(long productId) {
+        return inStock(getBoughtTogetherIds(productId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        for (LongIntHashMap bucket : buckets) {
+            bucket.clear();
+        }
+        windowTotals.clear();
+        rowIndex.clear();
+        coPurchases.clear();
+        currentBucket = System.currentTimeMillis() / bucketMillis;
+
+        // Lines arrive grouped by order, so pairs are counted as each order ends
+        LongIntHashMap orderProducts = new LongIntHashMap();
+        long[] currentOrder = {-1};
+        orderRepository.forEachOrderLine(line -> {
+            if (line.orderId() != currentOrder[0]) {
+                countPairs(orderProducts);
+                orderProducts.clear();
+                currentOrder[0] = line.orderId();
+            }
+            orderProducts.add(line.productId(), 1);
+            countSale(line.productId(), line.quantity(), bucketOf(line.orderDate()));
+        });
+        countPairs(orderProducts);
+
+        Map<Long, long[]> lists = new ConcurrentHashMap<>();
+        rowIndex.forEach((productId, row) -> lists.put(productId, coPurchases.get(row - 1).topKeys(topK)));
+        boughtTogether = lists;
+        publishBestSellers();
+    }
+
+    @TransactionalEventListener
+    public synchronized void onOrderPlaced(OrderPlacedEvent event) {
+        long bucket = bucketOf(event.getOrderDate());
+        if (bucket > currentBucket) {
+            advance(bucket);
+        }
+        LongIntHashMap orderProducts = new LongIntHashMap();
+        for (OrderPlacedEvent.Line line : event.getLines()) {
+            orderProducts.add(line.productId(), 1);
+            countSale(line.productId(), line.quantity(), bucket);
+        }
+        countPairs(orderProducts);
+        orderProducts.forEach((productId, lines) -> {
+            long[] top = coPurchases.get(rowIndex.get(productId) - 1).topKeys(topK);
+            if (!Arrays.equals(top, boughtTogether.get(productId))) {
+                boughtTogether.put(productId, top);
+            }
+        });
+        publishBestSellers();
+    }
+
+    // Drops the buckets that have left the window even when no orders come in
+    @Scheduled(fixedDelayString = "${store.analytics.bucket:PT1H}",
+               initialDelayString = "${store.analytics.bucket:PT1H}")
+    public synchronized void expire() {
+        if (advance(System.currentTimeMillis() / bucketMillis)) {
+            publishBestSellers();
+        }
+    }
+
+    // Moves the ring forward, returning whether any counts left the window
+    private boolean advance(long bucket) {
+        boolean expired = false;
+        long steps = Math.min(bucket - currentBucket, buckets.length);
+        for (long step = 1; step <= steps; step++) {
+            LongIntHashMap leaving = buckets[slotOf(currentBucket + step)];
+            if (!leaving.isEmpty()) {
+                leaving.forEach((productId, units) -> windowTotals.add(productId, -units));
+                leaving.clear();
+                expired = true;
+            }
+        }
+        currentBucket = Math.max(currentBucket, bucket);
+        return expired;
+    }
+
+    private void countSale(long productId, int quantity, long bucket) {
+        if (bucket > currentBucket - buckets.length && bucket <= currentBucket) {
+            buckets[slotOf(bucket)].add(productId, quantity);
+            windowTotals.add(productId, quantity);
+        }
+    }
+
+    private void countPairs(LongIntHashMap orderProducts) {
+        orderProducts.forEach((productId, lines) -> {
+            LongIntHashMap row = coPurchases.get(rowOf(productId));
+            orderProducts.forEach((otherId, otherLines) -> {
+                if (otherId != productId) {
+                    row.add(otherId, 1);
+                }
+            });
+        });
+    }
+
+    private int rowOf(long productId) {
+        int row = rowIndex.get(productId) - 1;
+        if (row < 0) {
+            row = coPurchases.size();
+            // Stored one-based, because a zero count means absent
+            rowIndex.add(productId, row + 1);
+            coPurchases.add(new LongIntHashMap());
+        }
+        return row;
+    }
+
+    private void publishBestSellers() {
+        long[] top = windowTotals.topKeys(topK);
+        if (!Arrays.equals(top, bestSellerIds)) {
+            bestSellerIds = top;
+            bestSellersVersion++;
+        }
+    }
+
+    private List<CatalogProduct> inStock(long[] ids) {
+        List<CatalogProduct> products = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            catalogService.findProduct(id)
+                    .filter(CatalogProduct::isInStock)
+                    .ifPresent(products::add);
+        }
+        return products;
+    }
+
+    private long bucketOf(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / bucketMillis;
+    }
+
+    private int slotOf(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.length);
+    }
+}
@@ -0,0 +1,122 @@
+package com.sportsstore.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size set of product ordinals packed 64 to a word. Bit sets are filled while a
+ * {@link CatalogSnapshot} is being built and are read-only once it is published; changes
+ * produce a copy.
+ */
+public final class ProductBitSet {
+
+    private final int size;
+    private final long[] words;
+
+    public ProductBitSet(int size) {
+        this(size, new long[(size + 63) >>> 6]);
+    }
+
+    private ProductBitSet(int size, long[] words) {
+        this.size = size;
+        this.words = words;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int ordinal) {
+        return (words[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    // Only used while the owning snapshot is being built
+    void set(int ordinal) {
+        words[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    /**
+     * Returns a copy of this set with the bit for the ordinal set or cleared.
+     */
+    public ProductBitSet with(int ordinal, boolean value) {
+        if (get(ordinal) == value) {
+            return this;
+        }
+        long[] copy = words.clone();
+        copy[ordinal >>> 6] ^= 1L << ordinal;
+        return new ProductBitSet(size, copy);
+    }
+
+    /**
+     * Returns the first set ordinal at or after {@code from}, or -1 if there is none.
+     */
+    public int nextSetBit(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int index = from >>> 6;
+        long word = words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int ordinal = (index << 6) + Long.numberOfTrailingZeros(word);
+                return ordinal < size ? ordinal : -1;
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the set of ordinals present in every given set. {@code null} sets are skipped,
+     * so an unused filter does not restrict the result; if every set is {@code null} the
+     * result is {@code null} as well, meaning "all products".
+     */
+    public static ProductBitSet intersect(ProductBitSet... sets) {
+        long[] result = null;
+        int size = 0;
+        for (ProductBitSet set : sets) {
+            if (set == null) {
+                continue;
+            }
+            if (result == null) {
+                result = set.words.clone();
+                size = set.size;
+            } else {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= set.words[i];
+                }
+            }
+        }
+        return result != null ? new ProductBitSet(size, result) : null;
+    }
+
+    /**
+     * Counts the ordinals present in every given set without materialising the intersection.
+     * {@code null} sets are skipped; {@code size} is returned if every set is {@code null}.
+     */
+    public static int countIntersection(int size, ProductBitSet... sets) {
+        ProductBitSet[] present = Arrays.stream(sets).filter(set -> set != null).toArray(ProductBitSet[]::new);
+        if (present.length == 0) {
+            return size;
+        }
+
+        int count = 0;
+        for (int i = 0; i < present[0].words.length; i++) {
+            long word = present[0].words[i];
+            for (int j = 1; j < present.length && word != 0; j++) {
+                word &= present[j].words[i];
+            }
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
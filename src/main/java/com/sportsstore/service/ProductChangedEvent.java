@@ -0,0 +1,88 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Product;
+import com.sportsstore.repository.StockLevel;
+
+/**
+ * Published by {@link ProductService} whenever a product is saved, deleted or has its stock changed.
+ * In-memory catalog structures listen for it after the surrounding transaction commits.
+ * <p>
+ * Listeners of concurrent transactions can run in either order, so every event carries the
+ * product row's version. A listener holding a stock level from a newer version must ignore
+ * the event's stock quantity; see {@link #isNewerThan(long)}.
+ */
+public class ProductChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED,
+        STOCK_CHANGED
+    }
+
+    private final Type type;
+    private final Long productId;
+    private final Product product;
+    private final int stockQuantity;
+    private final long version;
+
+    private ProductChangedEvent(Type type, Long productId, Product product, int stockQuantity, long version) {
+        this.type = type;
+        this.productId = productId;
+        this.product = product;
+        this.stockQuantity = stockQuantity;
+        this.version = version;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(Type.SAVED, product.getId(), product, product.getStockQuantity(), 0);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null, 0, 0);
+    }
+
+    public static ProductChangedEvent stockChanged(Long productId, StockLevel stockLevel) {
+        return new ProductChangedEvent(Type.STOCK_CHANGED, productId, null, stockLevel.quantity(), stockLevel.version());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    // Only set for SAVED events
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    /**
+     * The product row's version the stock quantity was read at. A saved product is only
+     * flushed on commit, so its version is read from the entity when the listener asks.
+     */
+    public long getVersion() {
+        if (product != null) {
+            return product.getVersion() != null ? product.getVersion() : 0;
+        }
+        return version;
+    }
+
+    // True if this event's stock level is newer than one read at the given version
+    public boolean isNewerThan(long version) {
+        return getVersion() > version;
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+
+    public boolean isStockChange() {
+        return type == Type.STOCK_CHANGED;
+    }
+}
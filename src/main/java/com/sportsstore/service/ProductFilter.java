@@ -0,0 +1,12 @@
+package com.sportsstore.service;
+
+/**
+ * Facet selections for a storefront listing. A {@code null} category or price range
+ * means that facet is not filtered on.
+ */
+public record ProductFilter(Long categoryId, PriceRange priceRange, boolean inStockOnly) {
+
+    public static ProductFilter none() {
+        return new ProductFilter(null, null, false);
+    }
+}
@@ -0,0 +1,105 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogProduct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the rendered HTML of the product markup that every visitor sees the same way, so
+ * product pages only render the per-user parts (navbar, forms) with each request.
+ * <p>
+ * Fragments come from {@code fragments/product.html}. A cache key covers everything the
+ * markup shows: the product version, the stock level as far as the markup distinguishes it,
+ * the category name and the locale. The stock counter is read once per render, and the
+ * template shows that value rather than the live counter, so a fragment always matches its
+ * key even if a checkout changes the stock meanwhile. A stale fragment can therefore never
+ * be served; saved and deleted products are also dropped eagerly to free the space. The
+ * cache holds at most {@code store.fragment-cache.max-entries} fragments and evicts the
+ * least recently used.
+ */
+@Component
+public class ProductFragmentCache {
+
+    private static final String TEMPLATE = "fragments/product";
+    // Above this the markup just says "In Stock", so higher levels share one fragment
+    private static final int LOW_STOCK_THRESHOLD = 10;
+
+    private final ITemplateEngine templateEngine;
+    private final Map<FragmentKey, String> fragments;
+
+    @Autowired
+    public ProductFragmentCache(ITemplateEngine templateEngine,
+                                @Value("${store.fragment-cache.max-entries:5000}") int maxEntries) {
+        this.templateEngine = templateEngine;
+        this.fragments = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FragmentKey, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public String cardBody(CatalogProduct product) {
+        return render("card-body", product);
+    }
+
+    public String featuredCardBody(CatalogProduct product) {
+        return render("featured-card-body", product);
+    }
+
+    public String detailSummary(CatalogProduct product) {
+        return render("detail-summary", product);
+    }
+
+    public int size() {
+        synchronized (fragments) {
+            return fragments.size();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isStockChange()) {
+            return;
+        }
+        synchronized (fragments) {
+            fragments.keySet().removeIf(key -> key.productId() == event.getProductId());
+        }
+    }
+
+    private String render(String fragment, CatalogProduct product) {
+        Locale locale = LocaleContextHolder.getLocale();
+        int stockQuantity = product.getStockQuantity();
+        FragmentKey key = new FragmentKey(fragment, product.getId(), product.getVersion(),
+                Math.min(stockQuantity, LOW_STOCK_THRESHOLD + 1), product.getCategory().getName(), locale);
+
+        synchronized (fragments) {
+            String html = fragments.get(key);
+            if (html != null) {
+                return html;
+            }
+        }
+
+        // Rendered outside the lock; two requests may render the same fragment, which is harmless
+        String html = templateEngine.process(TEMPLATE, Set.of(fragment), new Context(locale,
+                Map.of("product", product, "stockQuantity", stockQuantity)));
+        synchronized (fragments) {
+            fragments.put(key, html);
+        }
+        return html;
+    }
+
+    private record FragmentKey(String fragment, long productId, long version, int stockLevel,
+                               String categoryName, Locale locale) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.sportsstore.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a keyset-paginated product listing, with cursors for the neighbouring pages.
+ */
+public class ProductPage<T> {
+
+    private final List<T> products;
+    private final String nextCursor;
+    private final String previousCursor;
+
+    public ProductPage(List<T> products, String nextCursor, String previousCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+
+    static <T> ProductPage<T> of(Window<T> window, KeysetScrollPosition requested) {
+        List<T> products = window.getContent();
+        if (products.isEmpty()) {
+            return new ProductPage<>(Collections.emptyList(), null, null);
+        }
+
+        // Backward windows come back in listing order; hasNext() then means "more before this page"
+        boolean hasNext = !requested.scrollsForward() || window.hasNext();
+        boolean hasPrevious = requested.scrollsForward() ? !requested.isInitial() : window.hasNext();
+
+        String nextCursor = hasNext
+                ? KeysetCursor.encode(ScrollPosition.forward(keysAt(window, products.size() - 1)))
+                : null;
+        String previousCursor = hasPrevious
+                ? KeysetCursor.encode(ScrollPosition.backward(keysAt(window, 0)))
+                : null;
+
+        return new ProductPage<>(products, nextCursor, previousCursor);
+    }
+
+    private static Map<String, ?> keysAt(Window<?> window, int index) {
+        return ((KeysetScrollPosition) window.positionAt(index)).getKeys();
+    }
+
+    public List<T> getProducts() {
+        return products;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+}
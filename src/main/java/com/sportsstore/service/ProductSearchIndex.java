@@ -0,0 +1,471 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Product;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product names and descriptions.
+ * Each term maps to a posting list of product ids, and results are ranked with BM25F
+ * so that matches in the product name count for more than matches in the description.
+ * <p>
+ * A query token matches every term that contains it, like the {@code LIKE '%term%'} search this
+ * replaced. Terms are found through an index from each substring of up to
+ * {@value #MAX_GRAM_LENGTH} characters to the terms containing it, so only the terms sharing the
+ * query's rarest trigram are checked. Terms that merely contain the token rank below terms that
+ * start with it.
+ * <p>
+ * Misspelled queries are handled by a second index from character trigrams to the terms that
+ * contain them. When a query finds fewer than {@value #MIN_EXACT_RESULTS} products, each query
+ * token is also expanded to the terms within a small edit distance of it. Candidates come from
+ * the trigram index, so the cost depends on the size of the vocabulary, not the catalog.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_BOOST = 3.0;
+
+    // Fewer exact results than this and the query is retried with typo tolerance
+    static final int MIN_EXACT_RESULTS = 3;
+    // Each edit halves the weight of a fuzzy match, so exact matches still rank first
+    private static final double FUZZY_PENALTY_PER_EDIT = 0.5;
+    // "ball" inside "basketball" still matches, but ranks below a term starting with the query
+    private static final double INFIX_WEIGHT = 0.75;
+    static final int MAX_GRAM_LENGTH = 3;
+
+    // term -> (productId -> term frequencies)
+    private final Map<String, Map<Long, Posting>> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    // (term length, trigram) -> terms containing it; only used to find candidates for fuzzy matches
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+    // substring of 1 to MAX_GRAM_LENGTH characters -> terms containing it; finds infix matches
+    private final Map<String, Set<String>> termsByGram = new HashMap<>();
+    private long totalNameLength;
+    private long totalDescriptionLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            termsByTrigram.clear();
+            termsByGram.clear();
+            totalNameLength = 0;
+            totalDescriptionLength = 0;
+            for (Product product : products) {
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            remove(product.getId());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long productId) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isStockChange()) {
+            return;
+        }
+        if (event.isDeleted()) {
+            delete(event.getProductId());
+        } else {
+            index(event.getProduct());
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching products, most relevant first.
+     * Every query token must occur in a term of the product name or description.
+     * If that finds too few products, tokens may also match terms within a small edit distance;
+     * those products are listed after the exact matches.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            double averageNameLength = Math.max(1.0, (double) totalNameLength / documents.size());
+            double averageDescriptionLength = Math.max(1.0, (double) totalDescriptionLength / documents.size());
+
+            List<Long> exact = topIds(score(queryTerms, false, averageNameLength, averageDescriptionLength), limit);
+            if (exact.size() >= Math.min(limit, MIN_EXACT_RESULTS)) {
+                return exact;
+            }
+
+            List<Long> results = new ArrayList<>(exact);
+            Set<Long> seen = new HashSet<>(exact);
+            for (Long id : topIds(score(queryTerms, true, averageNameLength, averageDescriptionLength), limit)) {
+                if (results.size() < limit && seen.add(id)) {
+                    results.add(id);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sums the score of every query term over the products that match all of them
+    private Map<Long, Double> score(List<String> queryTerms, boolean fuzzy,
+                                    double averageNameLength, double averageDescriptionLength) {
+        Map<Long, Double> scores = null;
+        for (String queryTerm : queryTerms) {
+            Map<Long, Double> termScores = scoreTerm(queryTerm, fuzzy, averageNameLength, averageDescriptionLength);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private Map<Long, Double> scoreTerm(String queryTerm, boolean fuzzy,
+                                        double averageNameLength, double averageDescriptionLength) {
+        Map<Long, Double> scores = new HashMap<>();
+        int documentCount = documents.size();
+
+        Map<String, Double> expansions = new HashMap<>();
+        for (String term : infixMatches(queryTerm)) {
+            expansions.put(term, term.startsWith(queryTerm) ? 1.0 : INFIX_WEIGHT);
+        }
+        if (fuzzy) {
+            for (Map.Entry<String, Integer> match : fuzzyMatches(queryTerm).entrySet()) {
+                expansions.putIfAbsent(match.getKey(), Math.pow(FUZZY_PENALTY_PER_EDIT, match.getValue()));
+            }
+        }
+
+        for (Map.Entry<String, Double> expansion : expansions.entrySet()) {
+            Map<Long, Posting> postingList = postings.get(expansion.getKey());
+            int documentFrequency = postingList.size();
+            double idf = Math.log(1.0 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+            for (Map.Entry<Long, Posting> entry : postingList.entrySet()) {
+                Document document = documents.get(entry.getKey());
+                Posting posting = entry.getValue();
+
+                double weightedFrequency =
+                        NAME_BOOST * posting.nameFrequency / (1 - B + B * document.nameLength / averageNameLength)
+                        + posting.descriptionFrequency / (1 - B + B * document.descriptionLength / averageDescriptionLength);
+                double score = expansion.getValue() * idf * weightedFrequency / (K1 + weightedFrequency);
+
+                // A query term can expand to several terms of one product; keep the best one
+                scores.merge(entry.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the indexed terms that contain the query term. A query no longer than
+     * {@value #MAX_GRAM_LENGTH} characters is itself a key of the gram index; a longer one is
+     * checked against the terms holding its least common trigram, which every match must contain.
+     */
+    private Collection<String> infixMatches(String queryTerm) {
+        if (queryTerm.length() <= MAX_GRAM_LENGTH) {
+            return termsByGram.getOrDefault(queryTerm, Collections.emptySet());
+        }
+
+        Set<String> candidates = null;
+        for (int i = 0; i + MAX_GRAM_LENGTH <= queryTerm.length(); i++) {
+            Set<String> terms = termsByGram.get(queryTerm.substring(i, i + MAX_GRAM_LENGTH));
+            if (terms == null) {
+                return Collections.emptyList();
+            }
+            if (candidates == null || terms.size() < candidates.size()) {
+                candidates = terms;
+            }
+        }
+
+        List<String> matches = new ArrayList<>();
+        for (String term : candidates) {
+            if (term.contains(queryTerm)) {
+                matches.add(term);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the indexed terms within the allowed edit distance of the query term, with their
+     * distance. An insertion, deletion or substitution breaks at most three of the query's
+     * trigrams and a transposition at most four, so a term within {@code k} edits shares all but
+     * at most {@code 4k} of them. Only terms sharing enough trigrams are checked with the edit
+     * distance.
+     */
+    private Map<String, Integer> fuzzyMatches(String queryTerm) {
+        int maxEdits = maxEdits(queryTerm.length());
+        if (maxEdits == 0) {
+            return Collections.emptyMap();
+        }
+
+        // Terms are bucketed by length, so only lengths within reach of the query are visited
+        List<String> trigrams = trigrams(queryTerm);
+        Map<String, Integer> sharedTrigrams = new HashMap<>();
+        for (int length = queryTerm.length() - maxEdits; length <= queryTerm.length() + maxEdits; length++) {
+            for (String trigram : trigrams) {
+                for (String term : termsByTrigram.getOrDefault(trigramKey(length, trigram), Collections.emptySet())) {
+                    sharedTrigrams.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        int minShared = Math.max(1, trigrams.size() - 4 * maxEdits);
+        Map<String, Integer> matches = new HashMap<>();
+        for (Map.Entry<String, Integer> candidate : sharedTrigrams.entrySet()) {
+            if (candidate.getValue() >= minShared) {
+                int distance = editDistance(queryTerm, candidate.getKey(), maxEdits);
+                if (distance <= maxEdits) {
+                    matches.put(candidate.getKey(), distance);
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Short words tolerate fewer typos, otherwise almost everything would match
+    private static int maxEdits(int length) {
+        if (length < 4) {
+            return 0;
+        }
+        return length < 7 ? 1 : 2;
+    }
+
+    /**
+     * Optimal string alignment distance: insertions, deletions, substitutions and transpositions
+     * of adjacent characters each count as one edit. Gives up and returns {@code max + 1} as soon
+     * as the distance must exceed {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previousPrevious[j - 2] + 1);
+                }
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > max) {
+                return max + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    // Trigrams of the term padded with a marker at both ends, so short terms still have some
+    static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    // Distinct substrings of the term with 1 to MAX_GRAM_LENGTH characters
+    static Set<String> grams(String term) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i < term.length(); i++) {
+            for (int end = i + 1; end <= Math.min(term.length(), i + MAX_GRAM_LENGTH); end++) {
+                grams.add(term.substring(i, end));
+            }
+        }
+        return grams;
+    }
+
+    private static String trigramKey(int termLength, String trigram) {
+        return termLength + ":" + trigram;
+    }
+
+    private static List<Long> topIds(Map<Long, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(limit + 1, (a, b) -> {
+            int byScore = Double.compare(a.getValue(), b.getValue());
+            return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey());
+        });
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    // Callers must hold the write lock
+    private void add(Product product) {
+        List<String> nameTerms = tokenize(product.getName());
+        List<String> descriptionTerms = tokenize(product.getDescription());
+        Long productId = product.getId();
+
+        for (String term : nameTerms) {
+            postingList(term).computeIfAbsent(productId, id -> new Posting()).nameFrequency++;
+        }
+        for (String term : descriptionTerms) {
+            postingList(term).computeIfAbsent(productId, id -> new Posting()).descriptionFrequency++;
+        }
+
+        Document document = new Document(nameTerms.size(), descriptionTerms.size(),
+                Set.copyOf(concat(nameTerms, descriptionTerms)));
+        documents.put(productId, document);
+        totalNameLength += document.nameLength;
+        totalDescriptionLength += document.descriptionLength;
+    }
+
+    // Callers must hold the write lock
+    private void remove(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Map<Long, Posting> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                    for (String trigram : trigrams(term)) {
+                        String key = trigramKey(term.length(), trigram);
+                        Set<String> terms = termsByTrigram.get(key);
+                        terms.remove(term);
+                        if (terms.isEmpty()) {
+                            termsByTrigram.remove(key);
+                        }
+                    }
+                    for (String gram : grams(term)) {
+                        Set<String> terms = termsByGram.get(gram);
+                        terms.remove(term);
+                        if (terms.isEmpty()) {
+                            termsByGram.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+        totalNameLength -= document.nameLength;
+        totalDescriptionLength -= document.descriptionLength;
+    }
+
+    // Callers must hold the write lock; new terms are added to the trigram and gram indexes as well
+    private Map<Long, Posting> postingList(String term) {
+        Map<Long, Posting> postingList = postings.get(term);
+        if (postingList == null) {
+            postingList = new HashMap<>();
+            postings.put(term, postingList);
+            for (String trigram : trigrams(term)) {
+                termsByTrigram.computeIfAbsent(trigramKey(term.length(), trigram), key -> new HashSet<>()).add(term);
+            }
+            for (String gram : grams(term)) {
+                termsByGram.computeIfAbsent(gram, key -> new HashSet<>()).add(term);
+            }
+        }
+        return postingList;
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first.size() + second.size());
+        all.addAll(first);
+        all.addAll(second);
+        return all;
+    }
+
+    /**
+     * Lower-cases the text and splits it on anything that is not a letter or digit.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static class Posting {
+        int nameFrequency;
+        int descriptionFrequency;
+    }
+
+    private record Document(int nameLength, int descriptionLength, Set<String> terms) {
+    }
+}
@@ -3,10 +3,17 @@ package com.sportsstore.service;
 import com.sportsstore.model.Product;
 import com.sportsstore.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -14,10 +21,23 @@ import java.util.Optional;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository,
+                          ProductSearchIndex productSearchIndex,
+                          ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Build the search index once the seed data has been loaded
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildSearchIndex() {
+        productSearchIndex.rebuild(productRepository.findAll());
     }
 
     public List<Product> findAll() {
@@ -32,8 +52,16 @@ public class ProductService {
         return productRepository.findByCategoryId(categoryId);
     }
 
-    public List<Product> searchProducts(String searchTerm) {
-        return productRepository.searchProducts(searchTerm);
+    public ProductPage<Product> findPage(Long categoryId, ProductSort sort, String cursor, int pageSize) {
+        KeysetScrollPosition position = KeysetCursor.decode(cursor);
+        Window<Product> window = categoryId != null
+                ? productRepository.findByCategoryId(categoryId, position, sort.getSort(), Limit.of(pageSize))
+                : productRepository.findAllBy(position, sort.getSort(), Limit.of(pageSize));
+        return ProductPage.of(window, position);
+    }
+
+    public long countProducts(Long categoryId) {
+        return categoryId != null ? productRepository.countByCategoryId(categoryId) : productRepository.count();
     }
 
     public List<Product> findInStock() {
@@ -41,24 +69,28 @@ public class ProductService {
     }
 
     public Product save(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
 
     public void deleteById(Long id) {
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
-    public boolean reduceStock(Long productId, int quantity) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            if (product.getStockQuantity() >= quantity) {
-                product.setStockQuantity(product.getStockQuantity() - quantity);
-                productRepository.save(product);
-                return true;
-            }
+    /**
+     * Takes an order's quantities out of stock with one batch of conditional updates, so two
+     * checkouts can never both sell the last units. Throws if any product is short, which
+     * rolls back the surrounding transaction and with it every other line.
+     */
+    public void reduceStock(Map<Long, Integer> quantitiesByProductId) {
+        if (!productRepository.reduceStock(quantitiesByProductId).isEmpty()) {
+            throw new IllegalStateException("Some items are out of stock");
         }
-        return false;
+
+        productRepository.findStockLevels(quantitiesByProductId.keySet()).forEach((productId, stockLevel) ->
+                eventPublisher.publishEvent(ProductChangedEvent.stockChanged(productId, stockLevel)));
     }
 
     public boolean isInStock(Long productId, int quantity) {
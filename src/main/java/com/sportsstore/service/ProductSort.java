@@ -0,0 +1,40 @@
+package com.sportsstore.service;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Stable sort orders for product listings. Each one ends on the product id so that
+ * (sort key, id) is unique and can be used as a keyset cursor.
+ */
+public enum ProductSort {
+
+    NAME("name", Sort.by("name", "id")),
+    PRICE("price", Sort.by("price", "id")),
+    NEWEST("newest", Sort.by(Sort.Direction.DESC, "id"));
+
+    private final String key;
+    private final Sort sort;
+
+    ProductSort(String key, Sort sort) {
+        this.key = key;
+        this.sort = sort;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    // Unknown or missing keys fall back to sorting by name
+    public static ProductSort fromKey(String key) {
+        for (ProductSort productSort : values()) {
+            if (productSort.key.equalsIgnoreCase(key)) {
+                return productSort;
+            }
+        }
+        return NAME;
+    }
+}
@@ -0,0 +1,68 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Figures shown on the admin sales dashboard. Order counts cover every order; sales cover the
+ * days from {@code since} to today.
+ */
+public class SalesDashboard {
+
+    public record Day(LocalDate date, long units, BigDecimal revenue) {
+    }
+
+    public record Row(String name, long units, BigDecimal revenue) {
+    }
+
+    private final LocalDate since;
+    private final Map<OrderStatus, Long> orderCounts;
+    private final List<Day> days;
+    private final List<Row> categories;
+    private final List<Row> topProducts;
+
+    public SalesDashboard(LocalDate since, Map<OrderStatus, Long> orderCounts, List<Day> days,
+                          List<Row> categories, List<Row> topProducts) {
+        this.since = since;
+        this.orderCounts = orderCounts;
+        this.days = days;
+        this.categories = categories;
+        this.topProducts = topProducts;
+    }
+
+    public LocalDate getSince() {
+        return since;
+    }
+
+    // Orders per status, in lifecycle order
+    public Map<OrderStatus, Long> getOrderCounts() {
+        return orderCounts;
+    }
+
+    public long getTotalOrders() {
+        return orderCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // One entry per day, oldest first, including days without sales
+    public List<Day> getDays() {
+        return days;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return days.stream().map(Day::revenue).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Highest revenue first
+    public List<Row> getCategories() {
+        return categories;
+    }
+
+    // Most units sold first
+    public List<Row> getTopProducts() {
+        return topProducts;
+    }
+}
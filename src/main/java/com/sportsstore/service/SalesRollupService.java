@@ -0,0 +1,241 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderItem;
+import com.sportsstore.model.OrderStatus;
+import com.sportsstore.model.OrderStatusCount;
+import com.sportsstore.model.Product;
+import com.sportsstore.repository.DailyProductSalesRepository;
+import com.sportsstore.repository.DailySalesTotal;
+import com.sportsstore.repository.OrderRepository;
+import com.sportsstore.repository.OrderStatusCountRepository;
+import com.sportsstore.repository.SalesRollupRepository.Sale;
+import com.sportsstore.repository.SalesTotal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the sales rollup tables behind the admin dashboard and reads the dashboard from them.
+ * <p>
+ * Placing an order and changing its status add to the rollups in the same transaction, so the
+ * figures are exact once that transaction commits. Sales figures are net of cancellations: an
+ * order that is cancelled has its lines taken back out. Rows are always changed in key order,
+ * which keeps concurrent orders from deadlocking on them.
+ * <p>
+ * Every checkout adds to the same {@code order_status_counts} row, so checkouts queue on that
+ * row's lock between their rollup update and their commit. The update is the last statement of
+ * the checkout to keep that window short; exact counts are worth the wait at this store's order
+ * rate. Orders placed before the rollups existed
+ * are counted once by {@link #backfill()}; the {@code rolled_up} flag on each order tells
+ * the two paths apart.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderStatusCountRepository orderStatusCountRepository;
+    private final DailyProductSalesRepository dailyProductSalesRepository;
+    private final CatalogService catalogService;
+    private final TransactionTemplate transactionTemplate;
+    private final int days;
+    private final int topProducts;
+    private final int backfillBatchSize;
+
+    @Autowired
+    public SalesRollupService(OrderRepository orderRepository,
+                              OrderStatusCountRepository orderStatusCountRepository,
+                              DailyProductSalesRepository dailyProductSalesRepository,
+                              CatalogService catalogService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${store.dashboard.days:30}") int days,
+                              @Value("${store.dashboard.top-products:10}") int topProducts,
+                              @Value("${store.dashboard.backfill-batch-size:500}") int backfillBatchSize) {
+        this.orderRepository = orderRepository;
+        this.orderStatusCountRepository = orderStatusCountRepository;
+        this.dailyProductSalesRepository = dailyProductSalesRepository;
+        this.catalogService = catalogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.days = days;
+        this.topProducts = topProducts;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    /**
+     * Adds a newly saved order to the rollups. The caller marks the order as rolled up before
+     * saving it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrderPlaced(Order order) {
+        record(List.of(order));
+    }
+
+    /**
+     * Moves an order from its previous status count to its current one. The caller must hold
+     * the order's row lock.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChange(Order order, OrderStatus previousStatus) {
+        // An order the backfill has not reached yet is counted under its status at that point
+        if (order.isRolledUp()) {
+            recordStatusChanges(previousStatus, order.getStatus(), List.of(order.getId()));
+        }
+    }
+
+    /**
+     * Moves the given rolled-up orders from one status count to another, and takes their sales
+     * back out if they were cancelled. The caller must hold the orders' row locks.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanges(OrderStatus from, OrderStatus to, Collection<Long> orderIds) {
+        if (orderIds.isEmpty() || from == to) {
+            return;
+        }
+        Map<OrderStatus, Long> deltas = new TreeMap<>();
+        deltas.put(from, -(long) orderIds.size());
+        deltas.put(to, (long) orderIds.size());
+        dailyProductSalesRepository.addOrderCounts(deltas);
+
+        // Cancelled is final, so an order's sales are only ever taken out once
+        if (to == OrderStatus.CANCELLED) {
+            List<Sale> refunds = new ArrayList<>();
+            for (Sale sale : dailyProductSalesRepository.sumOrderSales(orderIds)) {
+                refunds.add(new Sale(sale.salesDate(), sale.productId(), sale.categoryId(),
+                        -sale.units(), sale.revenue().negate()));
+            }
+            dailyProductSalesRepository.addProductSales(refunds);
+        }
+    }
+
+    /**
+     * Counts every order that is not in the rollups yet, one batch per transaction. Once all
+     * orders have been counted this is a single indexed lookup that finds nothing.
+     *
+     * @return the number of orders counted
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int backfill() {
+        int total = 0;
+        int counted;
+        do {
+            counted = transactionTemplate.execute(status -> {
+                List<Order> batch = orderRepository.findByRolledUpFalseOrderById(Limit.of(backfillBatchSize));
+                if (!batch.isEmpty()) {
+                    orderRepository.findWithItemsByIdIn(batch.stream().map(Order::getId).toList());
+                    record(batch);
+                    batch.forEach(order -> order.setRolledUp(true));
+                }
+                return batch.size();
+            });
+            total += counted;
+        } while (counted == backfillBatchSize);
+
+        if (total > 0) {
+            log.info("Backfilled sales rollups with {} orders", total);
+        }
+        return total;
+    }
+
+    /**
+     * Reads the dashboard from the rollups. Costs four statements over at most one row per
+     * status, and per product for each day shown, whatever the number of orders.
+     */
+    @Transactional(readOnly = true)
+    public SalesDashboard getDashboard() {
+        LocalDate today = LocalDate.now();
+        LocalDate since = today.minusDays(days - 1L);
+
+        Map<OrderStatus, Long> orderCounts = new TreeMap<>();
+        for (OrderStatusCount count : orderStatusCountRepository.findAll()) {
+            if (count.getOrderCount() != 0) {
+                orderCounts.put(count.getStatus(), count.getOrderCount());
+            }
+        }
+
+        Map<LocalDate, DailySalesTotal> salesByDay = new HashMap<>();
+        for (DailySalesTotal total : dailyProductSalesRepository.sumByDaySince(since)) {
+            salesByDay.put(total.getSalesDate(), total);
+        }
+        List<SalesDashboard.Day> dayRows = new ArrayList<>(days);
+        for (LocalDate date = since; !date.isAfter(today); date = date.plusDays(1)) {
+            DailySalesTotal total = salesByDay.get(date);
+            dayRows.add(total == null
+                    ? new SalesDashboard.Day(date, 0, BigDecimal.ZERO)
+                    : new SalesDashboard.Day(date, total.getUnits(), total.getRevenue()));
+        }
+
+        Map<Long, String> categoryNames = new HashMap<>();
+        for (CatalogCategory category : catalogService.getCategories()) {
+            categoryNames.put(category.getId(), category.getName());
+        }
+        List<SalesDashboard.Row> categoryRows = new ArrayList<>();
+        for (SalesTotal total : dailyProductSalesRepository.sumByCategorySince(since)) {
+            String name = categoryNames.getOrDefault(total.getId(), "Category #" + total.getId());
+            categoryRows.add(new SalesDashboard.Row(name, total.getUnits(), total.getRevenue()));
+        }
+
+        List<SalesDashboard.Row> productRows = new ArrayList<>(topProducts);
+        for (SalesTotal total : dailyProductSalesRepository.findTopProductsSince(since, Limit.of(topProducts))) {
+            String name = catalogService.findProduct(total.getId())
+                    .map(CatalogProduct::getName)
+                    .orElse("Product #" + total.getId());
+            productRows.add(new SalesDashboard.Row(name, total.getUnits(), total.getRevenue()));
+        }
+
+        return new SalesDashboard(since, orderCounts, dayRows, categoryRows, productRows);
+    }
+
+    // Adds the orders' status counts and line sales, summed per row first so each row is written once
+    private void record(List<Order> orders) {
+        Map<OrderStatus, Long> orderCounts = new TreeMap<>();
+        Map<LocalDate, Map<Long, Sale>> salesByDay = new TreeMap<>();
+        for (Order order : orders) {
+            orderCounts.merge(order.getStatus(), 1L, Long::sum);
+            // The backfill can find orders that were cancelled before it reached them
+            if (order.getStatus() == OrderStatus.CANCELLED) {
+                continue;
+            }
+            LocalDate salesDate = order.getOrderDate().toLocalDate();
+            Map<Long, Sale> salesByProduct = salesByDay.computeIfAbsent(salesDate, date -> new TreeMap<>());
+            for (OrderItem item : order.getOrderItems()) {
+                Product product = item.getProduct();
+                BigDecimal revenue = item.getPriceAtPurchase().times(item.getQuantity()).getAmount();
+                salesByProduct.merge(product.getId(),
+                        new Sale(salesDate, product.getId(), product.getCategory().getId(), item.getQuantity(), revenue),
+                        SalesRollupService::combine);
+            }
+        }
+
+        List<Sale> sales = new ArrayList<>();
+        salesByDay.values().forEach(salesByProduct -> sales.addAll(salesByProduct.values()));
+        dailyProductSalesRepository.addOrderCounts(orderCounts);
+        dailyProductSalesRepository.addProductSales(sales);
+    }
+
+    private static Sale combine(Sale first, Sale second) {
+        return new Sale(first.salesDate(), first.productId(), first.categoryId(),
+                first.units() + second.units(), first.revenue().add(second.revenue()));
+    }
+}
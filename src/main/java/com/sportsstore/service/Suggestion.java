@@ -0,0 +1,12 @@
+package com.sportsstore.service;
+
+/**
+ * One type-ahead completion for the storefront search box.
+ */
+public record Suggestion(String text, Type type, Long id) {
+
+    public enum Type {
+        PRODUCT,
+        CATEGORY
+    }
+}
@@ -0,0 +1,278 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Type-ahead completions for product and category names, served from a prefix trie.
+ * <p>
+ * Every word of a name starts a key, so "nike air zoom" is found by typing "air" as well as
+ * "nike". Each trie node keeps the best completions below it, ranked by recent sales, so a
+ * lookup is one walk down the typed characters with no ranking at query time.
+ * <p>
+ * Keys are cut off after {@value #MAX_KEY_LENGTH} characters. The nodes at the cut-off keep a
+ * deeper list of up to {@value #MAX_LEAF_CANDIDATES} names, and a longer query is only checked
+ * against that list, so no lookup costs more than a bounded number of string checks. A query
+ * longer than the cut-off may therefore miss names ranked below that many others sharing its
+ * first {@value #MAX_KEY_LENGTH} characters.
+ * <p>
+ * The trie is immutable. It is rebuilt on a background thread when the catalog changes and
+ * swapped in with a single volatile write, so requests never wait for a rebuild.
+ */
+@Component
+public class SuggestionIndex {
+
+    static final int MAX_SUGGESTIONS = 10;
+
+    // Keys are cut off here to bound the size of the trie; longer queries are checked against the full name
+    static final int MAX_KEY_LENGTH = 24;
+    // Names kept at a cut-off node for checking queries longer than the keys
+    static final int MAX_LEAF_CANDIDATES = 64;
+
+    private final CatalogService catalogService;
+    private final FeaturedProductService featuredProductService;
+
+    private final AtomicReference<CatalogSnapshot> pendingSnapshot = new AtomicReference<>();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "suggestion-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Trie trie = Trie.EMPTY;
+
+    @Autowired
+    public SuggestionIndex(CatalogService catalogService, FeaturedProductService featuredProductService) {
+        this.catalogService = catalogService;
+        this.featuredProductService = featuredProductService;
+    }
+
+    /**
+     * Returns up to {@value #MAX_SUGGESTIONS} completions of the query, most popular first.
+     */
+    public List<Suggestion> suggest(String query) {
+        return trie.suggest(query);
+    }
+
+    @EventListener
+    public void onCatalogUpdated(CatalogUpdatedEvent event) {
+        scheduleRebuild(event.getSnapshot());
+    }
+
+    // The catalog is published before recent sales are loaded, so rank again once they are
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void onStartup() {
+        refresh();
+    }
+
+    // Popularity follows sales, which do not change the catalog, so refresh the ranking now and then
+    @Scheduled(fixedDelayString = "${store.suggest.refresh-interval:PT5M}",
+               initialDelayString = "${store.suggest.refresh-interval:PT5M}")
+    public void refresh() {
+        scheduleRebuild(catalogService.getSnapshot());
+    }
+
+    public void rebuild(CatalogSnapshot snapshot) {
+        trie = Trie.build(snapshot, featuredProductService.getRecentSales());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    // A burst of catalog changes is coalesced into one rebuild from the latest snapshot
+    private void scheduleRebuild(CatalogSnapshot snapshot) {
+        if (pendingSnapshot.getAndSet(snapshot) == null) {
+            rebuilder.execute(() -> rebuild(pendingSnapshot.getAndSet(null)));
+        }
+    }
+
+    /**
+     * Lower-cases the text and collapses anything that is not a letter or digit into single spaces.
+     */
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{Nd}]+", " ").stripLeading();
+    }
+
+    private static final class Trie {
+
+        static final Trie EMPTY = new Trie(new Node(new char[0], new Node[0], new int[0]), new Suggestion[0], new String[0]);
+
+        private final Node root;
+        private final Suggestion[] suggestions;
+        private final String[] normalizedTexts;
+
+        private Trie(Node root, Suggestion[] suggestions, String[] normalizedTexts) {
+            this.root = root;
+            this.suggestions = suggestions;
+            this.normalizedTexts = normalizedTexts;
+        }
+
+        static Trie build(CatalogSnapshot snapshot, Map<Long, Double> recentSales) {
+            List<Candidate> candidates = new ArrayList<>();
+            Map<Long, Double> categorySales = new HashMap<>();
+            for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+                CatalogProduct product = snapshot.productAt(ordinal);
+                double sales = recentSales.getOrDefault(product.getId(), 0.0);
+                candidates.add(new Candidate(new Suggestion(product.getName(), Suggestion.Type.PRODUCT, product.getId()), sales));
+                categorySales.merge(product.getCategory().getId(), sales, Double::sum);
+            }
+            for (CatalogCategory category : snapshot.getCategories()) {
+                candidates.add(new Candidate(new Suggestion(category.getName(), Suggestion.Type.CATEGORY, category.getId()),
+                        categorySales.getOrDefault(category.getId(), 0.0)));
+            }
+
+            // Best first, so each node's list fills up in rank order as suggestions are inserted
+            candidates.sort(Comparator.comparingDouble(Candidate::popularity).reversed()
+                    .thenComparing(candidate -> candidate.suggestion().type() != Suggestion.Type.CATEGORY)
+                    .thenComparing(candidate -> candidate.suggestion().text(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(candidate -> candidate.suggestion().id()));
+
+            Suggestion[] suggestions = new Suggestion[candidates.size()];
+            String[] normalizedTexts = new String[candidates.size()];
+            BuildNode root = new BuildNode(MAX_SUGGESTIONS);
+            for (int rank = 0; rank < suggestions.length; rank++) {
+                suggestions[rank] = candidates.get(rank).suggestion();
+                normalizedTexts[rank] = normalize(suggestions[rank].text()).strip();
+                insert(root, normalizedTexts[rank], rank);
+            }
+            return new Trie(root.freeze(), suggestions, normalizedTexts);
+        }
+
+        // Adds a key starting at every word of the text
+        private static void insert(BuildNode root, String text, int rank) {
+            for (int start = 0; start < text.length(); start++) {
+                if (start > 0 && text.charAt(start - 1) != ' ') {
+                    continue;
+                }
+                BuildNode node = root;
+                int end = Math.min(text.length(), start + MAX_KEY_LENGTH);
+                for (int i = start; i < end; i++) {
+                    int capacity = i - start + 1 == MAX_KEY_LENGTH ? MAX_LEAF_CANDIDATES : MAX_SUGGESTIONS;
+                    node = node.children.computeIfAbsent(text.charAt(i), c -> new BuildNode(capacity));
+                    node.offer(rank);
+                }
+            }
+        }
+
+        List<Suggestion> suggest(String query) {
+            if (query == null) {
+                return Collections.emptyList();
+            }
+            String prefix = normalize(query);
+            if (prefix.isBlank()) {
+                return Collections.emptyList();
+            }
+
+            Node node = root;
+            for (int i = 0; i < Math.min(prefix.length(), MAX_KEY_LENGTH) && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+
+            if (prefix.length() <= MAX_KEY_LENGTH) {
+                int count = Math.min(node.top.length, MAX_SUGGESTIONS);
+                List<Suggestion> result = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    result.add(suggestions[node.top[i]]);
+                }
+                return result;
+            }
+            // The cut-off node keeps a deeper list, which covers the names a longer query can still match
+            return matching(prefix, node.top);
+        }
+
+        // Ranks whose name has a word starting with the prefix, best first
+        private List<Suggestion> matching(String prefix, int[] ranks) {
+            List<Suggestion> result = new ArrayList<>();
+            for (int rank : ranks) {
+                if ((" " + normalizedTexts[rank] + " ").contains(" " + prefix)) {
+                    result.add(suggestions[rank]);
+                    if (result.size() == MAX_SUGGESTIONS) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private record Candidate(Suggestion suggestion, double popularity) {
+    }
+
+    // Mutable node used while building; frozen into a compact Node once complete
+    private static final class BuildNode {
+        final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        final int[] top;
+        int count;
+
+        BuildNode(int capacity) {
+            this.top = new int[capacity];
+        }
+
+        void offer(int rank) {
+            // A name can reach the same node through two of its words, e.g. "Ball" in "Ball Ball Pump"
+            if (count == top.length || (count > 0 && top[count - 1] == rank)) {
+                return;
+            }
+            top[count++] = rank;
+        }
+
+        Node freeze() {
+            char[] labels = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuildNode> child : children.entrySet()) {
+                labels[i] = child.getKey();
+                frozen[i] = child.getValue().freeze();
+                i++;
+            }
+            int[] ranks = new int[count];
+            System.arraycopy(top, 0, ranks, 0, count);
+            return new Node(labels, frozen, ranks);
+        }
+    }
+
+    // Children are kept in parallel arrays sorted by character and found with a binary search
+    private record Node(char[] labels, Node[] children, int[] top) {
+
+        Node child(char label) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (labels[middle] < label) {
+                    low = middle + 1;
+                } else if (labels[middle] > label) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+    }
+}
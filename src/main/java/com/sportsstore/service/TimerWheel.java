@@ -0,0 +1,76 @@
+package com.sportsstore.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel: items are dropped into the slot for their deadline tick, and advancing
+ * the wheel only looks at the slots that have come due, so scheduling and expiry cost the
+ * same whether ten or ten thousand items are waiting.
+ */
+class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots;
+    private long currentTick;
+
+    TimerWheel(Duration tick, int slotCount, long startMillis) {
+        this.tickMillis = tick.toMillis();
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    synchronized void schedule(T item, long deadlineMillis) {
+        // Never into the slot being processed, and rounded up so items do not fire early
+        long tick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        slots.get(slotOf(tick)).add(new Entry<>(item, tick));
+    }
+
+    /**
+     * Moves the wheel up to the given time and returns the items whose deadline has passed.
+     */
+    synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        if (targetTick - currentTick >= slots.size()) {
+            // Fell a whole turn behind, so every slot is due
+            for (List<Entry<T>> slot : slots) {
+                expire(slot, targetTick, expired);
+            }
+        } else {
+            for (long tick = currentTick + 1; tick <= targetTick; tick++) {
+                expire(slots.get(slotOf(tick)), tick, expired);
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    synchronized int size() {
+        return slots.stream().mapToInt(List::size).sum();
+    }
+
+    // Items more than a turn away share a slot with nearer ones and stay until their own tick
+    private static <T> void expire(List<Entry<T>> slot, long tick, List<T> expired) {
+        Iterator<Entry<T>> entries = slot.iterator();
+        while (entries.hasNext()) {
+            Entry<T> entry = entries.next();
+            if (entry.tick() <= tick) {
+                expired.add(entry.item());
+                entries.remove();
+            }
+        }
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+
+    private record Entry<T>(T item, long tick) {
+    }
+}
@@ -1,23 +1,40 @@
 package com.sportsstore.controller;
 
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
 import com.sportsstore.model.Category;
-import com.sportsstore.model.Product;
-import com.sportsstore.service.CategoryService;
-import com.sportsstore.service.ProductService;
+import com.sportsstore.service.CatalogService;
+import com.sportsstore.service.FacetCounts;
+import com.sportsstore.service.PriceRange;
+import com.sportsstore.service.ProductAnalyticsService;
+import com.sportsstore.service.ProductFilter;
+import com.sportsstore.service.ProductFragmentCache;
+import com.sportsstore.service.ProductPage;
+import com.sportsstore.service.ProductSort;
+import com.sportsstore.service.Suggestion;
+import com.sportsstore.service.SuggestionIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,15 +46,24 @@ class ProductControllerTest {
     private MockMvc mockMvc;
 
     @MockBean
-    private ProductService productService;
+    private CatalogService catalogService;
 
     @MockBean
-    private CategoryService categoryService;
+    private SuggestionIndex suggestionIndex;
+
+    @MockBean
+    private ProductAnalyticsService productAnalyticsService;
+
+    // Referenced by name from the templates
+    @MockBean(name = "productFragmentCache")
+    private ProductFragmentCache productFragmentCache;
 
-    private Product testProduct;
     private Category testCategory;
-    private List<Product> productList;
-    private List<Category> categoryList;
+    private CatalogProduct testCatalogProduct;
+    private AtomicInteger testStock;
+    private List<CatalogProduct> catalogProductList;
+    private List<CatalogCategory> categoryList;
+    private FacetCounts facetCounts;
 
     @BeforeEach
     void setUp() {
@@ -47,26 +73,26 @@ class ProductControllerTest {
         testCategory.setName("Basketball");
         testCategory.setDescription("Basketball equipment");
 
-        // Set up test product
-        testProduct = new Product();
-        testProduct.setId(1L);
-        testProduct.setName("Test Basketball");
-        testProduct.setDescription("Official test basketball");
-        testProduct.setPrice(new BigDecimal("89.99"));
-        testProduct.setImageUrl("https://example.com/ball.jpg");
-        testProduct.setStockQuantity(50);
-        testProduct.setCategory(testCategory);
-
-        productList = Arrays.asList(testProduct);
-        categoryList = Arrays.asList(testCategory);
+        // Set up test product as the catalog snapshot holds it
+        testStock = new AtomicInteger(50);
+        CatalogCategory catalogCategory = CatalogCategory.from(testCategory);
+        testCatalogProduct = new CatalogProduct(1L, 1, "Test Basketball", "Official test basketball",
+                new BigDecimal("89.99"), "https://example.com/ball.jpg", catalogCategory, false, testStock);
+
+        catalogProductList = Arrays.asList(testCatalogProduct);
+        categoryList = Arrays.asList(catalogCategory);
+        facetCounts = new FacetCounts(1, Map.of(1L, 1), Map.of(PriceRange.FROM_50_TO_100, 1), 1);
+        when(productAnalyticsService.getWindow()).thenReturn(Duration.ofDays(7));
     }
 
     @Test
     @WithMockUser
     void testListProducts_WithoutFilters() throws Exception {
         // Arrange
-        when(productService.findAll()).thenReturn(productList);
-        when(categoryService.findAll()).thenReturn(categoryList);
+        when(catalogService.findPage(ProductFilter.none(), ProductSort.NAME, null, 24))
+                .thenReturn(new ProductPage<>(catalogProductList, null, null));
+        when(catalogService.countFacets(ProductFilter.none())).thenReturn(facetCounts);
+        when(catalogService.getCategories()).thenReturn(categoryList);
 
         // Act & Assert
         mockMvc.perform(get("/products"))
@@ -74,6 +100,7 @@ class ProductControllerTest {
                 .andExpect(view().name("products"))
                 .andExpect(model().attributeExists("products"))
                 .andExpect(model().attributeExists("categories"))
+                .andExpect(model().attribute("sort", "name"))
                 .andExpect(model().attribute("products", hasSize(1)))
                 .andExpect(model().attribute("products", hasItem(
                         hasProperty("name", is("Test Basketball"))
@@ -84,8 +111,11 @@ class ProductControllerTest {
     @WithMockUser
     void testListProducts_WithCategoryFilter() throws Exception {
         // Arrange
-        when(productService.findByCategoryId(1L)).thenReturn(productList);
-        when(categoryService.findAll()).thenReturn(categoryList);
+        ProductFilter filter = new ProductFilter(1L, null, false);
+        when(catalogService.findPage(filter, ProductSort.NAME, null, 24))
+                .thenReturn(new ProductPage<>(catalogProductList, null, null));
+        when(catalogService.countFacets(filter)).thenReturn(facetCounts);
+        when(catalogService.getCategories()).thenReturn(categoryList);
 
         // Act & Assert
         mockMvc.perform(get("/products")
@@ -97,12 +127,52 @@ class ProductControllerTest {
                 .andExpect(model().attribute("products", hasSize(1)));
     }
 
+    @Test
+    @WithMockUser
+    void testListProducts_WithSortAndCursor() throws Exception {
+        // Arrange
+        when(catalogService.findPage(ProductFilter.none(), ProductSort.PRICE, "f.price:ODkuOTk.id:MQ", 24))
+                .thenReturn(new ProductPage<>(catalogProductList, "f.price:OTkuOTk.id:Mg", "b.price:ODkuOTk.id:MQ"));
+        when(catalogService.countFacets(ProductFilter.none())).thenReturn(facetCounts);
+        when(catalogService.getCategories()).thenReturn(categoryList);
+
+        // Act & Assert
+        mockMvc.perform(get("/products")
+                        .param("sort", "price")
+                        .param("cursor", "f.price:ODkuOTk.id:MQ"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("sort", "price"))
+                .andExpect(model().attribute("page", hasProperty("nextCursor", is("f.price:OTkuOTk.id:Mg"))))
+                .andExpect(model().attribute("products", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser
+    void testListProducts_WithPriceAndStockFacets() throws Exception {
+        // Arrange
+        ProductFilter filter = new ProductFilter(null, PriceRange.FROM_50_TO_100, true);
+        when(catalogService.findPage(filter, ProductSort.NAME, null, 24))
+                .thenReturn(new ProductPage<>(catalogProductList, null, null));
+        when(catalogService.countFacets(filter)).thenReturn(facetCounts);
+        when(catalogService.getCategories()).thenReturn(categoryList);
+
+        // Act & Assert
+        mockMvc.perform(get("/products")
+                        .param("price", "50-100")
+                        .param("inStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("selectedPrice", "50-100"))
+                .andExpect(model().attribute("inStock", true))
+                .andExpect(model().attribute("facets", hasProperty("inStockCount", is(1))))
+                .andExpect(model().attribute("products", hasSize(1)));
+    }
+
     @Test
     @WithMockUser
     void testListProducts_WithSearch() throws Exception {
         // Arrange
-        when(productService.searchProducts("basketball")).thenReturn(productList);
-        when(categoryService.findAll()).thenReturn(categoryList);
+        when(catalogService.searchProducts("basketball")).thenReturn(catalogProductList);
+        when(catalogService.getCategories()).thenReturn(categoryList);
 
         // Act & Assert
         mockMvc.perform(get("/products")
@@ -114,11 +184,33 @@ class ProductControllerTest {
                 .andExpect(model().attribute("products", hasSize(1)));
     }
 
+    @Test
+    @WithMockUser
+    void testSuggest_ReturnsJson() throws Exception {
+        // Arrange
+        when(suggestionIndex.suggest("bask")).thenReturn(Arrays.asList(
+                new Suggestion("Basketball", Suggestion.Type.CATEGORY, 1L),
+                new Suggestion("Test Basketball", Suggestion.Type.PRODUCT, 1L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/products/suggest")
+                        .param("q", "bask"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].type", is("CATEGORY")))
+                .andExpect(jsonPath("$[1].text", is("Test Basketball")));
+    }
+
     @Test
     @WithMockUser
     void testProductDetail_Found() throws Exception {
         // Arrange
-        when(productService.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(catalogService.findProduct(1L)).thenReturn(Optional.of(testCatalogProduct));
+        CatalogProduct hoop = new CatalogProduct(2L, 1, "Test Hoop", "Official test hoop", new BigDecimal("199.99"),
+                null, testCatalogProduct.getCategory(), false, new AtomicInteger(5));
+        when(productAnalyticsService.getBoughtTogether(1L)).thenReturn(List.of(hoop));
+        when(productAnalyticsService.getBestSellers()).thenReturn(List.of(testCatalogProduct, hoop));
 
         // Act & Assert
         mockMvc.perform(get("/products/1"))
@@ -126,14 +218,67 @@ class ProductControllerTest {
                 .andExpect(view().name("product-detail"))
                 .andExpect(model().attributeExists("product"))
                 .andExpect(model().attribute("product", hasProperty("name", is("Test Basketball"))))
-                .andExpect(model().attribute("product", hasProperty("price", is(new BigDecimal("89.99")))));
+                .andExpect(model().attribute("product", hasProperty("price", is(new BigDecimal("89.99")))))
+                .andExpect(model().attribute("boughtTogether", contains(hasProperty("name", is("Test Hoop")))))
+                .andExpect(model().attribute("bestSellers", contains(hasProperty("name", is("Test Hoop")))))
+                .andExpect(content().string(containsString("Frequently Bought Together")));
+    }
+
+    @Test
+    @WithMockUser
+    void testProductDetail_NotModified() throws Exception {
+        // Arrange
+        MockHttpSession session = new MockHttpSession();
+        when(catalogService.findProduct(1L)).thenReturn(Optional.of(testCatalogProduct));
+        when(catalogService.getLastModified()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        String etag = mockMvc.perform(get("/products/1").session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "private, no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/products/1").session(session).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        testStock.set(49);
+        mockMvc.perform(get("/products/1").session(session).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        testStock.set(50);
+        when(productAnalyticsService.getVersion(1L)).thenReturn("1:[2]");
+        mockMvc.perform(get("/products/1").session(session).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser
+    void testListProducts_NotModifiedSkipsController() throws Exception {
+        // Arrange
+        MockHttpSession session = new MockHttpSession();
+        when(catalogService.getCatalogVersion()).thenReturn("7.3");
+        when(catalogService.getLastModified()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        when(catalogService.findPage(ProductFilter.none(), ProductSort.NAME, null, 24))
+                .thenReturn(new ProductPage<>(catalogProductList, null, null));
+        when(catalogService.findPage(ProductFilter.none(), ProductSort.PRICE, null, 24))
+                .thenReturn(new ProductPage<>(catalogProductList, null, null));
+        when(catalogService.countFacets(ProductFilter.none())).thenReturn(facetCounts);
+        when(catalogService.getCategories()).thenReturn(categoryList);
+        String etag = mockMvc.perform(get("/products").session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/products").session(session).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/products").session(session).param("sort", "price").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        verify(catalogService, times(1)).findPage(ProductFilter.none(), ProductSort.NAME, null, 24);
     }
 
     @Test
     @WithMockUser
     void testProductDetail_NotFound() throws Exception {
         // Arrange
-        when(productService.findById(999L)).thenReturn(Optional.empty());
+        when(catalogService.findProduct(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(get("/products/999"))
@@ -0,0 +1,117 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Money;
+import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderItem;
+import com.sportsstore.model.Product;
+import com.sportsstore.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderRepositoryTest {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("id"));
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User customer;
+    private List<Long> newestFirstIds;
+
+    @BeforeEach
+    void setUp() {
+        customer = new User("history-customer", "history@example.com", "secret");
+        entityManager.persist(customer);
+        Category category = new Category("History Category", "Test category");
+        entityManager.persist(category);
+        List<Product> products = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            Product product = new Product("History Product " + p, "Test product", new BigDecimal("9.99"), null, 5, category);
+            entityManager.persist(product);
+            products.add(product);
+        }
+
+        // Seven orders of two items each; the last three share a timestamp to exercise the id tie-break
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int o = 0; o < 7; o++) {
+            Order order = new Order(customer, Money.of("19.98"), "1 Main St", "Halifax", "B3H");
+            order.addOrderItem(new OrderItem(order, products.get(o % 3), 1, Money.of("9.99")));
+            order.addOrderItem(new OrderItem(order, products.get((o + 1) % 3), 1, Money.of("9.99")));
+            entityManager.persist(order);
+            entityManager.flush();
+            entityManager.createQuery("UPDATE Order o SET o.orderDate = :date WHERE o.id = :id")
+                    .setParameter("date", start.plusDays(Math.min(o, 4)))
+                    .setParameter("id", order.getId())
+                    .executeUpdate();
+        }
+        entityManager.clear();
+
+        newestFirstIds = orderRepository.findByUserOrderByOrderDateDesc(customer).stream()
+                .sorted((a, b) -> b.getOrderDate().equals(a.getOrderDate())
+                        ? b.getId().compareTo(a.getId())
+                        : b.getOrderDate().compareTo(a.getOrderDate()))
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindByUser_WalksHistoryNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        KeysetScrollPosition position = ScrollPosition.keyset();
+        Window<Order> window;
+        do {
+            window = orderRepository.findByUser(customer, position, NEWEST_FIRST, Limit.of(3));
+            window.getContent().forEach(order -> seen.add(order.getId()));
+            position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        } while (window.hasNext());
+
+        assertEquals(newestFirstIds, seen);
+    }
+
+    @Test
+    void testFindWithItemsByIdIn_LoadsPageInTwoStatements() {
+        // Arrange
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        List<Order> page = orderRepository.findByUser(customer, ScrollPosition.keyset(), NEWEST_FIRST, Limit.of(5))
+                .getContent();
+        orderRepository.findWithItemsByIdIn(page.stream().map(Order::getId).toList());
+
+        // Assert: render the same data the profile page does
+        int items = 0;
+        for (Order order : page) {
+            for (OrderItem item : order.getOrderItems()) {
+                assertNotNull(item.getProduct().getName());
+                items++;
+            }
+        }
+        assertEquals(10, items);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,121 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Long categoryId;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        // Several categories so that lazy loading would need one SELECT per category
+        Category first = null;
+        for (int c = 0; c < 4; c++) {
+            Category category = new Category("Statistics Category " + c, "Test category");
+            entityManager.persist(category);
+            if (first == null) {
+                first = category;
+            }
+            for (int p = 0; p < 3; p++) {
+                entityManager.persist(new Product("Statistics Product " + c + "-" + p, "Test product",
+                        new BigDecimal("19.99"), null, 5, category));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        categoryId = first.getId();
+        productIds = productRepository.findByNameContainingIgnoreCase("Statistics Product").stream()
+                .map(Product::getId)
+                .collect(Collectors.toList());
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testFindAll_LoadsCategoriesInOneStatement() {
+        assertOneStatement(productRepository.findAll());
+    }
+
+    @Test
+    void testFindAllById_LoadsCategoriesInOneStatement() {
+        assertOneStatement(productRepository.findAllById(productIds));
+    }
+
+    @Test
+    void testFindByCategoryId_LoadsCategoriesInOneStatement() {
+        assertOneStatement(productRepository.findByCategoryId(categoryId));
+    }
+
+    @Test
+    void testFindByStockQuantityGreaterThan_LoadsCategoriesInOneStatement() {
+        assertOneStatement(productRepository.findByStockQuantityGreaterThan(0));
+    }
+
+    @Test
+    void testSearchProducts_LoadsCategoriesInOneStatement() {
+        assertOneStatement(productRepository.searchProducts("statistics"));
+    }
+
+    @Test
+    void testFindAllByWindow_LoadsCategoriesInOneStatement() {
+        assertOneStatement(productRepository.findAllBy(ScrollPosition.keyset(), Sort.by("name", "id"), Limit.of(50))
+                .getContent());
+    }
+
+    @Test
+    void testFindByCategoryIdWindow_LoadsCategoriesInOneStatement() {
+        assertOneStatement(productRepository.findByCategoryId(categoryId, ScrollPosition.keyset(),
+                Sort.by("price", "id"), Limit.of(50)).getContent());
+    }
+
+    @Test
+    void testSave_RejectsSubCentPrice() {
+        // Arrange
+        Product product = productRepository.findById(productIds.get(0)).orElseThrow();
+        product.setPrice(new BigDecimal("9.999"));
+
+        // Act & Assert
+        assertThrows(ConstraintViolationException.class, () -> productRepository.saveAndFlush(product));
+    }
+
+    private void assertOneStatement(List<Product> products) {
+        assertFalse(products.isEmpty());
+
+        // Render the same data the listing templates do
+        for (Product product : products) {
+            assertNotNull(product.getCategory().getName());
+        }
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,133 @@
+package com.sportsstore.repository;
+
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Each reduction commits in its own transaction, as concurrent checkouts would
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductStockRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Category category;
+    private Product ball;
+    private Product pump;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        category = categoryRepository.save(new Category("Stock Test Category", "Test category"));
+        ball = productRepository.save(new Product("Stock Test Ball", "Test product", new BigDecimal("19.99"), null, 100, category));
+        pump = productRepository.save(new Product("Stock Test Pump", "Test product", new BigDecimal("9.99"), null, 2, category));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllById(List.of(ball.getId(), pump.getId()));
+        categoryRepository.deleteById(category.getId());
+    }
+
+    @Test
+    void testReduceStock_NeverOversellsUnderContention() throws Exception {
+        // Arrange: far more attempts than units in stock
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int sold = 0;
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (sellOne(ball.getId())) {
+                        sold++;
+                    }
+                }
+                return sold;
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int sold = 0;
+        for (Future<Integer> result : results) {
+            sold += result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(100, sold);
+        assertEquals(0, stockOf(ball));
+    }
+
+    @Test
+    void testReduceStock_ReportsShortProducts() {
+        // Act
+        List<Long> shortProductIds = transactionTemplate.execute(status -> {
+            List<Long> ids = productRepository.reduceStock(Map.of(ball.getId(), 10, pump.getId(), 3));
+            status.setRollbackOnly();
+            return ids;
+        });
+
+        // Assert: the caller rolls back, so neither product loses stock
+        assertEquals(List.of(pump.getId()), shortProductIds);
+        assertEquals(100, stockOf(ball));
+        assertEquals(2, stockOf(pump));
+    }
+
+    @Test
+    void testReduceStock_BumpsVersion() {
+        // Arrange
+        Long versionBefore = productRepository.findById(ball.getId()).orElseThrow().getVersion();
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> productRepository.reduceStock(Map.of(ball.getId(), 4)));
+
+        // Assert
+        Product reloaded = productRepository.findById(ball.getId()).orElseThrow();
+        assertEquals(96, reloaded.getStockQuantity());
+        assertEquals(versionBefore + 1, reloaded.getVersion());
+        assertEquals(new StockLevel(96, versionBefore + 1),
+                productRepository.findStockLevels(List.of(ball.getId(), pump.getId())).get(ball.getId()));
+    }
+
+    private boolean sellOne(Long productId) {
+        return transactionTemplate.execute(status -> productRepository.reduceStock(Map.of(productId, 1)).isEmpty());
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+    }
+}
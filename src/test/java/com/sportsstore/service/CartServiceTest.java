@@ -0,0 +1,176 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CartItem;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Money;
+import com.sportsstore.model.Product;
+import com.sportsstore.model.User;
+import com.sportsstore.repository.CartItemRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({CartService.class, GuestCartStore.class})
+class CartServiceTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private GuestCartStore guestCartStore;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private CatalogService catalogService;
+
+    private User user;
+    private Product ball;
+    private Product shoe;
+    private Product pump;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("merge-customer", "merge@example.com", "secret");
+        entityManager.persist(user);
+        Category category = new Category("Merge Category", "Test category");
+        entityManager.persist(category);
+        ball = new Product("Merge Ball", "Test product", new BigDecimal("20.00"), null, 50, category);
+        shoe = new Product("Merge Shoe", "Test product", new BigDecimal("100.00"), null, 50, category);
+        pump = new Product("Merge Pump", "Test product", new BigDecimal("5.00"), null, 50, category);
+        entityManager.persist(ball);
+        entityManager.persist(shoe);
+        entityManager.persist(pump);
+        entityManager.persist(new CartItem(ball, 1, user));
+        entityManager.persist(new CartItem(pump, 2, user));
+    }
+
+    @Test
+    void testMergeGuestCartToUser_SumsOverlapsAndMovesTheRest() {
+        // Arrange: one line already written behind, one still only in memory
+        GuestCart guestCart = guestCartStore.getOrCreate("merge-session");
+        guestCart.add(ball.getId(), 2);
+        guestCartStore.flush();
+        guestCart.add(shoe.getId(), 1);
+
+        // Act
+        int merged = cartService.mergeGuestCartToUser("merge-session", user);
+        entityManager.clear();
+
+        // Assert
+        assertEquals(2, merged);
+        Map<Long, Integer> userCart = cartItemRepository.findByUser(user).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity));
+        assertEquals(Map.of(ball.getId(), 3, shoe.getId(), 1, pump.getId(), 2), userCart);
+        assertTrue(cartItemRepository.findBySessionId("merge-session").isEmpty());
+        assertNull(guestCartStore.find("merge-session"));
+    }
+
+    @Test
+    void testMergeGuestCartToUser_WithoutGuestCartLeavesUserCartAlone() {
+        // Act
+        int merged = cartService.mergeGuestCartToUser("no-cart-session", user);
+
+        // Assert
+        assertEquals(0, merged);
+        assertEquals(2, cartItemRepository.findByUser(user).size());
+    }
+
+    @Test
+    void testCalculateTotal_AddsWholeCentsAndRejectsOverflow() {
+        // Arrange
+        Product dime = new Product("Merge Dime", "Test product", new BigDecimal("0.10"), null, 50, null);
+        Product priceless = new Product("Merge Priceless", "Test product", new BigDecimal("92233720368547758.07"), null, 1, null);
+
+        // Act
+        Money total = cartService.calculateTotal(List.of(new CartItem(dime, 3, user), new CartItem(ball, 2, user)));
+
+        // Assert
+        assertEquals(Money.of("40.30"), total);
+        assertEquals(new BigDecimal("40.30"), total.getAmount());
+        assertThrows(ArithmeticException.class,
+                () -> cartService.calculateTotal(List.of(new CartItem(priceless, 1, user), new CartItem(dime, 1, user))));
+    }
+
+    @Test
+    void testCalculateTotal_RoundsSubCentPricesLikeThePriceColumn() {
+        // Arrange: prices set on an entity that has not been read back from the database yet
+        Product up = new Product("Merge Half Up", "Test product", new BigDecimal("9.995"), null, 1, null);
+        Product down = new Product("Merge Half Down", "Test product", new BigDecimal("0.994"), null, 1, null);
+
+        // Act
+        Money total = cartService.calculateTotal(List.of(new CartItem(up, 1, user), new CartItem(down, 2, user)));
+
+        // Assert
+        assertEquals(Money.of("11.98"), total);
+    }
+
+    @Test
+    void testChangeUserLine_StaleVersionIsConflict() {
+        // Arrange
+        CartItem line = cartItemRepository.findByUserAndProduct(user, ball).orElseThrow();
+
+        // Act
+        CartDelta changed = cartService.changeUserLine(user, line.getId(), 4, line.getVersion());
+        CartDelta stale = cartService.changeUserLine(user, line.getId(), 7, line.getVersion());
+
+        // Assert
+        assertFalse(changed.conflict());
+        assertEquals(4, changed.line().quantity());
+        assertEquals(new BigDecimal("80.00"), changed.line().subtotal());
+        assertEquals(new BigDecimal("90.00"), changed.total());
+        assertEquals(6, changed.itemCount());
+        assertTrue(stale.conflict());
+        assertEquals(4, stale.line().quantity());
+        assertEquals(changed.line().version(), stale.line().version());
+    }
+
+    @Test
+    void testChangeGuestLine_AppliesCurrentVersionAndRemoves() {
+        // Arrange
+        when(catalogService.findProduct(ball.getId())).thenReturn(Optional.of(catalogCopy(ball)));
+        CartDelta added = cartService.addGuestLine("api-session", ball.getId(), 1);
+
+        // Act
+        CartDelta changed = cartService.changeGuestLine("api-session", ball.getId(), 3, added.line().version());
+        CartDelta stale = cartService.changeGuestLine("api-session", ball.getId(), 5, added.line().version());
+        CartDelta removed = cartService.changeGuestLine("api-session", ball.getId(), 0, changed.line().version());
+
+        // Assert
+        assertEquals(new BigDecimal("60.00"), changed.total());
+        assertEquals(3, changed.itemCount());
+        assertTrue(stale.conflict());
+        assertEquals(3, stale.line().quantity());
+        assertNull(removed.line());
+        assertEquals(ball.getId(), removed.removedId());
+        assertEquals(0, removed.itemCount());
+    }
+
+    private static CatalogProduct catalogCopy(Product product) {
+        return new CatalogProduct(product.getId(), 1, product.getName(), product.getDescription(), product.getPrice(),
+                null, null, false, new AtomicInteger(product.getStockQuantity()));
+    }
+}
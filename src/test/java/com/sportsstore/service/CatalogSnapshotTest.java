@@ -0,0 +1,175 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    private CatalogCategory basketball;
+    private CatalogCategory soccer;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        basketball = new CatalogCategory(1L, "Basketball", "Basketball equipment");
+        soccer = new CatalogCategory(2L, "Soccer", "Soccer equipment");
+        snapshot = CatalogSnapshot.of(1, Arrays.asList(soccer, basketball), Arrays.asList(
+                product(5L, "Soccer Ball", soccer),
+                product(1L, "Basketball", basketball),
+                product(3L, "Hoop", basketball)
+        ));
+    }
+
+    @Test
+    void testOf_SortsProductsById() {
+        assertEquals(3, snapshot.size());
+        assertEquals(1L, snapshot.productAt(0).getId());
+        assertEquals(5L, snapshot.productAt(2).getId());
+        assertEquals("Hoop", snapshot.findProduct(3L).orElseThrow().getName());
+        assertTrue(snapshot.findProduct(2L).isEmpty());
+        assertEquals(1L, snapshot.getCategories().get(0).getId());
+    }
+
+    @Test
+    void testFindByCategory() {
+        assertEquals(2, snapshot.findByCategory(1L).size());
+        assertEquals(1, snapshot.findByCategory(2L).size());
+        assertTrue(snapshot.findByCategory(99L).isEmpty());
+    }
+
+    @Test
+    void testWithProduct_InsertsWithoutChangingOriginal() {
+        // Act
+        CatalogSnapshot updated = snapshot.withProduct(product(4L, "Shin Guards", soccer));
+
+        // Assert
+        assertEquals(3, snapshot.size());
+        assertEquals(4, updated.size());
+        assertEquals(2, updated.getVersion());
+        assertEquals(2, updated.ordinalOf(4L));
+        assertEquals(2, updated.findByCategory(2L).size());
+    }
+
+    @Test
+    void testWithProduct_ReplacesExisting() {
+        // Act
+        CatalogSnapshot updated = snapshot.withProduct(product(3L, "Portable Hoop", soccer));
+
+        // Assert
+        assertEquals(3, updated.size());
+        assertEquals("Portable Hoop", updated.findProduct(3L).orElseThrow().getName());
+        assertEquals("Hoop", snapshot.findProduct(3L).orElseThrow().getName());
+        assertEquals(1, updated.findByCategory(1L).size());
+    }
+
+    @Test
+    void testWithoutProduct() {
+        // Act
+        CatalogSnapshot updated = snapshot.withoutProduct(1L);
+
+        // Assert
+        assertEquals(2, updated.size());
+        assertEquals(-1, updated.ordinalOf(1L));
+        assertEquals(1, updated.findByCategory(1L).size());
+        assertSame(updated, updated.withoutProduct(42L));
+    }
+
+    @Test
+    void testCountFacets_AppliesOtherSelections() {
+        // Arrange
+        CatalogSnapshot priced = CatalogSnapshot.of(1, Arrays.asList(soccer, basketball), Arrays.asList(
+                product(1L, "Basketball", basketball, "89.99", 5),
+                product(2L, "Hoop", basketball, "199.99", 0),
+                product(3L, "Shorts", basketball, "24.99", 5),
+                product(4L, "Soccer Ball", soccer, "29.99", 5)
+        ));
+
+        // Act
+        FacetCounts all = priced.countFacets(ProductFilter.none());
+        FacetCounts basketballInStock = priced.countFacets(new ProductFilter(1L, null, true));
+
+        // Assert
+        assertEquals(4, all.getTotal());
+        assertEquals(3, all.getCategoryCount(1L));
+        assertEquals(3, all.getInStockCount());
+        assertEquals(1, all.getPriceRangeCount(PriceRange.FROM_100_TO_200));
+        assertEquals(2, basketballInStock.getTotal());
+        assertEquals(1, basketballInStock.getCategoryCount(2L));
+        assertEquals(0, basketballInStock.getPriceRangeCount(PriceRange.FROM_100_TO_200));
+        assertEquals(1, basketballInStock.getPriceRangeCount(PriceRange.UNDER_25));
+    }
+
+    @Test
+    void testWithStockStatus_UpdatesInStockFacet() {
+        // Act
+        CatalogSnapshot updated = snapshot.withStockStatus(3L, false);
+
+        // Assert
+        assertEquals(3, snapshot.countFacets(ProductFilter.none()).getInStockCount());
+        assertEquals(2, updated.countFacets(ProductFilter.none()).getInStockCount());
+        assertEquals(2, updated.getVersion());
+        assertSame(updated, updated.withStockStatus(3L, false));
+    }
+
+    @Test
+    void testFindPage_PagesForwardAndBackward() {
+        // Arrange
+        CatalogSnapshot priced = CatalogSnapshot.of(1, Arrays.asList(soccer, basketball), Arrays.asList(
+                product(1L, "A", basketball, "50.00", 5),
+                product(2L, "B", soccer, "10.00", 5),
+                product(3L, "C", basketball, "30.00", 5),
+                product(4L, "D", basketball, "10.00", 5),
+                product(5L, "E", basketball, "20.00", 0)
+        ));
+        ProductFilter basketballInStock = new ProductFilter(1L, null, true);
+
+        // Act
+        ProductPage<CatalogProduct> first = priced.findPage(basketballInStock, ProductSort.PRICE, ScrollPosition.keyset(), 2);
+        ProductPage<CatalogProduct> second = priced.findPage(basketballInStock, ProductSort.PRICE,
+                KeysetCursor.decode(first.getNextCursor()), 2);
+        ProductPage<CatalogProduct> back = priced.findPage(basketballInStock, ProductSort.PRICE,
+                KeysetCursor.decode(second.getPreviousCursor()), 2);
+
+        // Assert
+        assertEquals(Arrays.asList(4L, 3L), ids(first));
+        assertFalse(first.hasPrevious());
+        assertEquals(Arrays.asList(1L), ids(second));
+        assertFalse(second.hasNext());
+        assertEquals(Arrays.asList(4L, 3L), ids(back));
+        assertFalse(back.hasPrevious());
+    }
+
+    @Test
+    void testFindPage_NewestFirst() {
+        // Act
+        ProductPage<CatalogProduct> page = snapshot.findPage(ProductFilter.none(), ProductSort.NEWEST, ScrollPosition.keyset(), 2);
+
+        // Assert
+        assertEquals(Arrays.asList(5L, 3L), ids(page));
+        assertEquals(Arrays.asList(1L), ids(snapshot.findPage(ProductFilter.none(), ProductSort.NEWEST,
+                KeysetCursor.decode(page.getNextCursor()), 2)));
+    }
+
+    private List<Long> ids(ProductPage<CatalogProduct> page) {
+        return page.getProducts().stream().map(CatalogProduct::getId).collect(Collectors.toList());
+    }
+
+    private CatalogProduct product(long id, String name, CatalogCategory category) {
+        return product(id, name, category, "10.00", 5);
+    }
+
+    private CatalogProduct product(long id, String name, CatalogCategory category, String price, int stock) {
+        return new CatalogProduct(id, 1, name, "Test product", new BigDecimal(price), null, category, false, new AtomicInteger(stock));
+    }
+}
@@ -0,0 +1,148 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Order;
+import com.sportsstore.model.User;
+import com.sportsstore.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutIdempotencyServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private CheckoutIdempotencyService idempotencyService;
+    private User user;
+    private AtomicInteger ordersPlaced;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new CheckoutIdempotencyService(orderRepository, 2);
+        user = new User();
+        user.setId(1L);
+        ordersPlaced = new AtomicInteger();
+        lenient().when(orderRepository.findByIdempotencyKey(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testPlaceOnce_RepeatedKeyReturnsFirstOrder() {
+        // Act
+        Long first = idempotencyService.placeOnce("key-1", 1L, this::placeOrder);
+        Long second = idempotencyService.placeOnce("key-1", 1L, this::placeOrder);
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(1, ordersPlaced.get());
+        assertEquals(Optional.of(first), idempotencyService.findOrderId("key-1", 1L));
+    }
+
+    @Test
+    void testPlaceOnce_ConcurrentSubmissionsPlaceOneOrder() throws Exception {
+        // Arrange: every submission arrives while the first is still running
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> idempotencyService.placeOnce("key-1", 1L, () -> {
+                awaitQuietly(release);
+                return placeOrder();
+            })));
+        }
+
+        // Act
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        for (Future<Long> result : results) {
+            assertEquals(1L, result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, ordersPlaced.get());
+    }
+
+    @Test
+    void testFindOrderId_FallsBackToStoredKeyAfterEviction() {
+        // Arrange: the map holds two keys, so the first is evicted
+        Long first = idempotencyService.placeOnce("key-1", 1L, this::placeOrder);
+        idempotencyService.placeOnce("key-2", 1L, this::placeOrder);
+        idempotencyService.placeOnce("key-3", 1L, this::placeOrder);
+        when(orderRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(order(first)));
+
+        // Act & Assert
+        assertEquals(Optional.of(first), idempotencyService.findOrderId("key-1", 1L));
+        assertEquals(Optional.empty(), idempotencyService.findOrderId("key-1", 2L));
+    }
+
+    @Test
+    void testPlaceOnce_ReturnsWinnerOfUniqueKeyRace() {
+        // Arrange: another instance stored an order with the same key first
+        when(orderRepository.findByIdempotencyKey("key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(order(42L)));
+
+        // Act
+        Long orderId = idempotencyService.placeOnce("key-1", 1L, () -> {
+            throw new DataIntegrityViolationException("Unique index violated");
+        });
+
+        // Assert
+        assertEquals(42L, orderId);
+    }
+
+    @Test
+    void testPlaceOnce_FailureAllowsRetry() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.placeOnce("key-1", 1L, () -> {
+            throw new IllegalStateException("Some items are out of stock");
+        }));
+
+        assertEquals(1L, idempotencyService.placeOnce("key-1", 1L, this::placeOrder));
+    }
+
+    @Test
+    void testPlaceOnce_WithoutKeyAlwaysPlaces() {
+        idempotencyService.placeOnce(null, 1L, this::placeOrder);
+        idempotencyService.placeOnce(null, 1L, this::placeOrder);
+
+        assertEquals(2, ordersPlaced.get());
+    }
+
+    private Order placeOrder() {
+        return order((long) ordersPlaced.incrementAndGet());
+    }
+
+    private Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUser(user);
+        return order;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Product;
+import com.sportsstore.repository.OrderRepository;
+import com.sportsstore.repository.StockLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeaturedProductServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CatalogService catalogService;
+
+    private FeaturedProductService featuredProductService;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        // Products 1..5 with increasing stock, so stock alone ranks 5 first
+        CatalogCategory category = new CatalogCategory(1L, "Basketball", "Basketball equipment");
+        List<CatalogProduct> products = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            products.add(new CatalogProduct(id, 1, "Product " + id, "Test product", new BigDecimal("10.00"), null,
+                    category, false, new AtomicInteger((int) id * 10)));
+        }
+        snapshot = CatalogSnapshot.of(1, Collections.singletonList(category), products);
+
+        when(orderRepository.findSalesSince(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+        when(catalogService.getSnapshot()).thenReturn(snapshot);
+        lenient().when(catalogService.findProduct(anyLong()))
+                .thenAnswer(invocation -> snapshot.findProduct(invocation.getArgument(0, Long.class)));
+
+        featuredProductService = new FeaturedProductService(orderRepository, catalogService,
+                3, 1.0, 0.01, 1000000, Duration.ofDays(7));
+        featuredProductService.rebuild();
+    }
+
+    @Test
+    void testRebuild_RanksByStockWithoutSales() {
+        assertEquals(List.of(5L, 4L, 3L), featuredIds());
+    }
+
+    @Test
+    void testOrderPlaced_MovesBestSellerToTop() {
+        // Act
+        featuredProductService.onOrderPlaced(new OrderPlacedEvent(1L, 1L, LocalDateTime.now(), BigDecimal.TEN,
+                List.of(new OrderPlacedEvent.Line(1L, 2, BigDecimal.TEN))));
+
+        // Assert
+        assertEquals(List.of(1L, 5L, 4L), featuredIds());
+    }
+
+    @Test
+    void testStockChanged_OutOfStockProductIsDropped() {
+        // Act
+        featuredProductService.onProductChanged(ProductChangedEvent.stockChanged(5L, new StockLevel(0, 2)));
+
+        // Assert
+        assertEquals(List.of(4L, 3L, 2L), featuredIds());
+    }
+
+    @Test
+    void testStockChanged_IgnoresOlderLevelDeliveredLate() {
+        // Act: the checkout that sold out commits last but its listener runs first
+        featuredProductService.onProductChanged(ProductChangedEvent.stockChanged(5L, new StockLevel(0, 3)));
+        featuredProductService.onProductChanged(ProductChangedEvent.stockChanged(5L, new StockLevel(49, 2)));
+
+        // Assert
+        assertEquals(List.of(4L, 3L, 2L), featuredIds());
+    }
+
+    @Test
+    void testSaved_PinnedProductIsFeaturedFirst() {
+        // Arrange
+        Product product = new Product("Product 2", "Test product", new BigDecimal("10.00"), null, 20, new Category());
+        product.setId(2L);
+        product.setFeatured(true);
+
+        // Act
+        featuredProductService.onProductChanged(ProductChangedEvent.saved(product));
+
+        // Assert
+        assertEquals(List.of(2L, 5L, 4L), featuredIds());
+    }
+
+    @Test
+    void testDeleted_ProductIsRemoved() {
+        // Arrange
+        snapshot = snapshot.withoutProduct(5L);
+
+        // Act
+        featuredProductService.onProductChanged(ProductChangedEvent.deleted(5L));
+
+        // Assert
+        assertEquals(List.of(4L, 3L, 2L), featuredIds());
+        assertEquals(Optional.empty(), snapshot.findProduct(5L));
+    }
+
+    private List<Long> featuredIds() {
+        return featuredProductService.getFeaturedProducts().stream()
+                .map(CatalogProduct::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,169 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CartItem;
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Product;
+import com.sportsstore.repository.CartItemRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpSessionEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = "store.cart.guest.max-carts=2")
+@Import(GuestCartStore.class)
+class GuestCartStoreTest {
+
+    @Autowired
+    private GuestCartStore guestCartStore;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Product ball;
+    private Product shoe;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category("Guest Cart Category", "Test category");
+        entityManager.persist(category);
+        ball = new Product("Guest Cart Ball", "Test product", new BigDecimal("20.00"), null, 50, category);
+        shoe = new Product("Guest Cart Shoe", "Test product", new BigDecimal("100.00"), null, 50, category);
+        entityManager.persist(ball);
+        entityManager.persist(shoe);
+    }
+
+    @Test
+    void testFlush_WritesOnlyChangedCarts() {
+        // Arrange
+        guestCartStore.getOrCreate("session-a").add(ball.getId(), 2);
+        assertTrue(cartItemRepository.findBySessionId("session-a").isEmpty());
+
+        // Act
+        guestCartStore.flush();
+        guestCartStore.find("session-a").update(ball.getId(), 3);
+        guestCartStore.getOrCreate("session-a").add(shoe.getId(), 1);
+        guestCartStore.flush();
+
+        // Assert
+        assertEquals(Map.of(ball.getId(), 3, shoe.getId(), 1), rowsOf("session-a"));
+        assertFalse(guestCartStore.find("session-a").isDirty());
+    }
+
+    @Test
+    void testSessionIdChanged_RewritesRowsUnderNewId() {
+        // Arrange
+        guestCartStore.getOrCreate("session-old").add(ball.getId(), 1);
+        guestCartStore.flush();
+        MockHttpSession session = new MockHttpSession(null, "session-new");
+
+        // Act
+        guestCartStore.sessionIdChanged(new HttpSessionEvent(session), "session-old");
+        guestCartStore.flush();
+
+        // Assert
+        assertNull(guestCartStore.find("session-old"));
+        assertEquals(Map.of(ball.getId(), 1), rowsOf("session-new"));
+        assertTrue(cartItemRepository.findBySessionId("session-old").isEmpty());
+    }
+
+    @Test
+    void testEviction_SpillsLeastRecentCartAndReloadsIt() {
+        // Arrange
+        guestCartStore.getOrCreate("session-1").add(ball.getId(), 4);
+        guestCartStore.getOrCreate("session-2").add(shoe.getId(), 1);
+
+        // Act: a third cart pushes out the least recently used one
+        guestCartStore.getOrCreate("session-3").add(ball.getId(), 1);
+
+        // Assert
+        assertEquals(2, guestCartStore.size());
+        assertEquals(Map.of(ball.getId(), 4), rowsOf("session-1"));
+        GuestCart reloaded = guestCartStore.find("session-1");
+        assertEquals(Map.of(ball.getId(), 4), reloaded.getQuantities());
+        assertFalse(reloaded.isDirty());
+    }
+
+    @Test
+    void testUpdate_NeverChangesACartThatLeftTheStore() {
+        // Arrange: a request picked the cart just before it was pushed out and written
+        GuestCart picked = guestCartStore.getOrCreate("session-picked");
+        picked.add(ball.getId(), 4);
+        guestCartStore.getOrCreate("session-newer").add(shoe.getId(), 1);
+        guestCartStore.getOrCreate("session-newest").add(ball.getId(), 1);
+        assertTrue(picked.isRetired());
+
+        // Act
+        GuestCart changed = guestCartStore.update("session-picked", true, cart -> {
+            cart.add(shoe.getId(), 1);
+            return cart;
+        });
+
+        // Assert: the change went to the copy read back from cart_items, which is written again
+        assertNotSame(picked, changed);
+        assertEquals(Map.of(ball.getId(), 4), picked.getQuantities());
+        assertEquals(Map.of(ball.getId(), 4, shoe.getId(), 1), changed.getQuantities());
+        assertTrue(changed.isDirty());
+    }
+
+    @Test
+    void testMoveToDatabase_FlushUnderWayDoesNotRewriteMergedCart() throws Exception {
+        // Arrange: a flush stalls writing the first cart while the second guest logs in
+        CartItemRepository repository = mock(CartItemRepository.class);
+        GuestCartStore store = new GuestCartStore(repository, mock(PlatformTransactionManager.class), 10, 50);
+        store.getOrCreate("session-slow").add(ball.getId(), 1);
+        GuestCart loginCart = store.getOrCreate("session-login");
+        loginCart.add(shoe.getId(), 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(repository).replaceGuestCart(isNull(), eq("session-slow"), anyMap());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> flush = executor.submit(store::flush);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        // Act: a request still holding the cart changes it after the login
+        store.moveToDatabase("session-login");
+        loginCart.add(shoe.getId(), 1);
+        release.countDown();
+        flush.get(10, TimeUnit.SECONDS);
+
+        // Assert: written by the login only, not again by the flush that had already picked it
+        verify(repository, times(1)).replaceGuestCart(any(), eq("session-login"), anyMap());
+        executor.shutdown();
+    }
+
+    private Map<Long, Integer> rowsOf(String sessionId) {
+        return cartItemRepository.findBySessionId(sessionId).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity));
+    }
+}
@@ -0,0 +1,125 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CartItem;
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Product;
+import com.sportsstore.model.User;
+import com.sportsstore.repository.CartItemRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpSessionEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"store.cart.guest.sweep-max-age=30m", "store.cart.guest.sweep-batch-size=2",
+        "store.cart.guest.sweep-pause=PT0S"})
+@Import({GuestCartSweeper.class, GuestCartStore.class})
+class GuestCartSweeperTest {
+
+    @Autowired
+    private GuestCartSweeper guestCartSweeper;
+
+    @Autowired
+    private GuestCartStore guestCartStore;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private Product ball;
+    private Product shoe;
+    private Product pump;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("sweep-customer", "sweep@example.com", "secret");
+        entityManager.persist(user);
+        Category category = new Category("Sweep Category", "Test category");
+        entityManager.persist(category);
+        ball = new Product("Sweep Ball", "Test product", new BigDecimal("20.00"), null, 50, category);
+        shoe = new Product("Sweep Shoe", "Test product", new BigDecimal("100.00"), null, 50, category);
+        pump = new Product("Sweep Pump", "Test product", new BigDecimal("5.00"), null, 50, category);
+        entityManager.persist(ball);
+        entityManager.persist(shoe);
+        entityManager.persist(pump);
+    }
+
+    @Test
+    void testSweep_DeletesOnlyAbandonedGuestRowsInBatches() {
+        // Arrange: five abandoned rows across three batches, plus rows that must stay
+        for (Product product : List.of(ball, shoe, pump)) {
+            entityManager.persist(new CartItem(product, 1, "sweep-gone-1"));
+        }
+        entityManager.persist(new CartItem(ball, 2, "sweep-gone-2"));
+        entityManager.persist(new CartItem(shoe, 2, "sweep-gone-2"));
+        entityManager.persist(new CartItem(ball, 1, "sweep-recent"));
+        entityManager.persist(new CartItem(pump, 1, user));
+        guestCartStore.getOrCreate("sweep-open").add(shoe.getId(), 1);
+        guestCartStore.flush();
+        entityManager.flush();
+        age("sweep-gone-1", "sweep-gone-2", "sweep-open");
+        entityManager.createNativeQuery("UPDATE cart_items SET last_touched = ? WHERE user_id IS NOT NULL")
+                .setParameter(1, LocalDateTime.now().minusDays(1))
+                .executeUpdate();
+        GuestCartSweepStats before = guestCartSweeper.getStats();
+
+        // Act
+        int swept = guestCartSweeper.sweep();
+        entityManager.clear();
+
+        // Assert
+        assertEquals(5, swept);
+        assertTrue(cartItemRepository.findBySessionId("sweep-gone-1").isEmpty());
+        assertTrue(cartItemRepository.findBySessionId("sweep-gone-2").isEmpty());
+        assertEquals(1, cartItemRepository.findBySessionId("sweep-recent").size());
+        assertEquals(1, cartItemRepository.findByUser(user).size());
+        CartItem open = cartItemRepository.findBySessionId("sweep-open").get(0);
+        assertTrue(open.getLastTouched().isAfter(LocalDateTime.now().minusMinutes(30)));
+
+        GuestCartSweepStats after = guestCartSweeper.getStats();
+        assertEquals(before.sweeps() + 1, after.sweeps());
+        assertEquals(before.rowsSwept() + 5, after.rowsSwept());
+        assertTrue(after.totalSweepTime().compareTo(before.totalSweepTime()) > 0);
+    }
+
+    @Test
+    void testSessionDestroyed_DropsCartAndItsRows() {
+        // Arrange
+        guestCartStore.getOrCreate("sweep-ended").add(ball.getId(), 1);
+        guestCartStore.flush();
+        guestCartStore.getOrCreate("sweep-unwritten").add(shoe.getId(), 1);
+        long dropped = guestCartSweeper.getStats().rowsDroppedOnSessionEnd();
+
+        // Act
+        guestCartSweeper.sessionDestroyed(new HttpSessionEvent(new MockHttpSession(null, "sweep-ended")));
+        guestCartSweeper.sessionDestroyed(new HttpSessionEvent(new MockHttpSession(null, "sweep-unwritten")));
+
+        // Assert
+        assertNull(guestCartStore.find("sweep-ended"));
+        assertNull(guestCartStore.find("sweep-unwritten"));
+        assertTrue(cartItemRepository.findBySessionId("sweep-ended").isEmpty());
+        assertEquals(dropped + 1, guestCartSweeper.getStats().rowsDroppedOnSessionEnd());
+    }
+
+    // Backdates the session's rows past the sweep age
+    private void age(String... sessionIds) {
+        for (String sessionId : sessionIds) {
+            entityManager.createNativeQuery("UPDATE cart_items SET last_touched = ? WHERE session_id = ?")
+                    .setParameter(1, LocalDateTime.now().minusHours(1))
+                    .setParameter(2, sessionId)
+                    .executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.sportsstore.service;
+
+import com.sportsstore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryReservationServiceTest {
+
+    private static final Duration HOLD_TTL = Duration.ofMinutes(10);
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private InventoryReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        Map<Long, Integer> stock = new LinkedHashMap<>();
+        stock.put(1L, 5);
+        stock.put(2L, 1000);
+        when(productRepository.findStockQuantitiesAfter(anyLong(), anyInt())).thenReturn(stock);
+
+        reservationService = new InventoryReservationService(productRepository, HOLD_TTL, Duration.ofSeconds(1));
+        reservationService.reconcile();
+    }
+
+    @Test
+    void testHold_TakesStockUntilNoneLeft() {
+        assertTrue(reservationService.hold(10L, Map.of(1L, 3)));
+        assertFalse(reservationService.hold(11L, Map.of(1L, 3)));
+        assertTrue(reservationService.hold(11L, Map.of(1L, 2)));
+
+        assertEquals(0, reservationService.getAvailable(1L));
+    }
+
+    @Test
+    void testHold_ShortProductLeavesOthersUntouched() {
+        assertFalse(reservationService.hold(10L, Map.of(1L, 6, 2L, 10)));
+
+        assertEquals(5, reservationService.getAvailable(1L));
+        assertEquals(1000, reservationService.getAvailable(2L));
+    }
+
+    @Test
+    void testHold_ReplacesPreviousHold() {
+        reservationService.hold(10L, Map.of(1L, 4));
+        reservationService.hold(10L, Map.of(1L, 2));
+
+        assertEquals(3, reservationService.getAvailable(1L));
+    }
+
+    @Test
+    void testExpireHolds_ReleasesStockAfterTtl() {
+        reservationService.hold(10L, Map.of(1L, 4));
+        long now = System.currentTimeMillis();
+
+        reservationService.expireHolds(now + HOLD_TTL.toMillis() / 2);
+        assertEquals(1, reservationService.getAvailable(1L));
+
+        reservationService.expireHolds(now + HOLD_TTL.toMillis() + 2000);
+        assertEquals(5, reservationService.getAvailable(1L));
+    }
+
+    @Test
+    void testOrderPlaced_KeepsStockTakenAndStopsExpiry() {
+        reservationService.hold(10L, Map.of(1L, 4));
+
+        reservationService.onOrderPlaced(order(10L, 1L, 4));
+        reservationService.expireHolds(System.currentTimeMillis() + HOLD_TTL.toMillis() + 2000);
+
+        assertEquals(1, reservationService.getAvailable(1L));
+    }
+
+    @Test
+    void testReconcile_SubtractsOutstandingHolds() {
+        reservationService.hold(10L, Map.of(2L, 100));
+
+        // An admin restocks while the hold is outstanding
+        when(productRepository.findStockQuantitiesAfter(anyLong(), anyInt())).thenReturn(Map.of(2L, 500));
+        reservationService.reconcile();
+
+        assertEquals(400, reservationService.getAvailable(2L));
+        assertEquals(0, reservationService.getAvailable(1L));
+    }
+
+    @Test
+    void testClaim_ThrowsWhenStockIsGone() {
+        reservationService.hold(10L, Map.of(1L, 5));
+
+        assertThrows(IllegalStateException.class, () -> reservationService.claim(11L, Map.of(1L, 1)));
+        assertDoesNotThrow(() -> reservationService.claim(10L, Map.of(1L, 5)));
+    }
+
+    @Test
+    void testClaim_ReleasesHoldWhenOrderRollsBack() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reservationService.claim(10L, Map.of(1L, 4));
+            assertEquals(1, reservationService.getAvailable(1L));
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert: the stock is back, and the expired entry does not give it back twice
+        assertEquals(5, reservationService.getAvailable(1L));
+        reservationService.expireHolds(System.currentTimeMillis() + HOLD_TTL.toMillis() + 2000);
+        assertEquals(5, reservationService.getAvailable(1L));
+    }
+
+    @Test
+    void testHoldAndOrder_NeverOversellsUnderContention() throws Exception {
+        // 64 shoppers race for one product with 1000 units, each trying 50 times
+        int threads = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (long t = 0; t < threads; t++) {
+            long userId = 100 + t;
+            results.add(executor.submit(() -> {
+                start.await();
+                int bought = 0;
+                for (int i = 0; i < 50; i++) {
+                    if (reservationService.hold(userId, Map.of(2L, 1))) {
+                        reservationService.onOrderPlaced(order(userId, 2L, 1));
+                        bought++;
+                    }
+                }
+                return bought;
+            }));
+        }
+
+        start.countDown();
+        int bought = 0;
+        for (Future<Integer> result : results) {
+            bought += result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1000, bought);
+        assertEquals(0, reservationService.getAvailable(2L));
+    }
+
+    private static OrderPlacedEvent order(Long userId, Long productId, int quantity) {
+        return new OrderPlacedEvent(1L, userId, LocalDateTime.now(), BigDecimal.TEN,
+                List.of(new OrderPlacedEvent.Line(productId, quantity, BigDecimal.TEN)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.sportsstore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void testAdd_MatchesHashMapThroughGrowthAndRemoval() {
+        // Arrange: few distinct keys, so counts often return to zero and entries are removed
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(500) * 1_000_003L;
+            int delta = random.nextInt(5) - 2;
+            map.add(key, delta);
+            expected.merge(key, delta, Integer::sum);
+            expected.remove(key, 0);
+        }
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    @Test
+    void testTopKeys_OrdersByCountThenKey() {
+        // Arrange
+        LongIntHashMap map = new LongIntHashMap();
+        map.add(7, 3);
+        map.add(3, 5);
+        map.add(9, 5);
+        map.add(1, 1);
+        map.add(4, 3);
+
+        // Act & Assert
+        assertArrayEquals(new long[]{3, 9, 4}, map.topKeys(3));
+        assertArrayEquals(new long[]{3, 9, 4, 7, 1}, map.topKeys(10));
+        assertArrayEquals(new long[0], map.topKeys(0));
+    }
+}
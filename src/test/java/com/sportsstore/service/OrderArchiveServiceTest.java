@@ -0,0 +1,167 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Money;
+import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderItem;
+import com.sportsstore.model.OrderSnapshot;
+import com.sportsstore.model.OrderStatus;
+import com.sportsstore.model.Product;
+import com.sportsstore.model.User;
+import com.sportsstore.repository.ArchivedOrderRepository;
+import com.sportsstore.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"store.archive.min-age=30d", "store.archive.batch-size=2"})
+@Import({OrderArchiveService.class, OrderService.class, SalesRollupService.class})
+class OrderArchiveServiceTest {
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private CartService cartService;
+
+    @MockBean
+    private InventoryReservationService inventoryReservationService;
+
+    @MockBean
+    private CatalogService catalogService;
+
+    private User customer;
+    private Product ball;
+
+    @BeforeEach
+    void setUp() {
+        customer = new User("archive-customer", "archive@example.com", "secret");
+        entityManager.persist(customer);
+        Category category = new Category("Archive Category", "Test category");
+        entityManager.persist(category);
+        ball = new Product("Archive Ball", "Test product", new BigDecimal("20.00"), null, 50, category);
+        entityManager.persist(ball);
+    }
+
+    @Test
+    void testArchive_MovesOnlyOldFinishedOrders() {
+        // Arrange
+        List<Long> oldDelivered = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            oldDelivered.add(place(OrderStatus.DELIVERED, 60 + i));
+        }
+        Long oldCancelled = place(OrderStatus.CANCELLED, 45);
+        Long oldShipped = place(OrderStatus.SHIPPED, 60);
+        Long recentDelivered = place(OrderStatus.DELIVERED, 5);
+
+        // Act
+        int archived = orderArchiveService.archive();
+        int archivedAgain = orderArchiveService.archive();
+        entityManager.clear();
+
+        // Assert
+        assertEquals(6, archived);
+        assertEquals(0, archivedAgain);
+        assertEquals(List.of(oldShipped, recentDelivered),
+                orderRepository.findAll().stream().map(Order::getId).sorted().toList());
+        List<Long> expectedArchive = new ArrayList<>(oldDelivered);
+        expectedArchive.add(oldCancelled);
+        assertEquals(expectedArchive, archivedOrderRepository.findAll().stream().map(a -> a.getId()).sorted().toList());
+        assertEquals(2, archivedOrderRepository.findById(oldCancelled).orElseThrow().getItems().size());
+        assertEquals(2, archivedOrderRepository.findById(oldCancelled).orElseThrow().getSnapshot().getItems().size());
+    }
+
+    @Test
+    void testFindPlacedOrder_FallsThroughToArchive() {
+        // Arrange
+        Long orderId = place(OrderStatus.DELIVERED, 60);
+        orderArchiveService.archive();
+        entityManager.clear();
+
+        // Act
+        Order order = orderService.findPlacedOrder(orderId, "archive-customer").orElseThrow();
+
+        // Assert
+        assertEquals(OrderStatus.DELIVERED, order.getStatus());
+        assertEquals(2, order.getSnapshot().getItems().size());
+        assertEquals("Archive Ball", order.getSnapshot().getItems().get(0).productName());
+        assertTrue(orderService.findById(orderId).isPresent());
+        assertTrue(orderService.findPlacedOrder(orderId, "someone-else").isEmpty());
+        assertTrue(orderService.findPlacedOrder(999_999L, "archive-customer").isEmpty());
+    }
+
+    @Test
+    void testFindOrderHistory_PagesAcrossLiveAndArchivedOrders() {
+        // Arrange: archived orders interleave with an old order that is still open
+        List<Long> newestFirst = new ArrayList<>();
+        for (int daysAgo = 1; daysAgo <= 70; daysAgo += 5) {
+            OrderStatus status = daysAgo == 51 ? OrderStatus.SHIPPED : OrderStatus.DELIVERED;
+            newestFirst.add(place(status, daysAgo));
+        }
+        orderArchiveService.archive();
+        entityManager.clear();
+        assertFalse(archivedOrderRepository.findAll().isEmpty());
+
+        // Act: read forward to the end, then back to the start
+        List<Long> seen = new ArrayList<>();
+        OrderHistoryPage page = orderService.findOrderHistory(customer, null, 4);
+        page.getOrders().forEach(order -> seen.add(order.getId()));
+        while (page.hasOlder()) {
+            page = orderService.findOrderHistory(customer, page.getOlderCursor(), 4);
+            page.getOrders().forEach(order -> seen.add(order.getId()));
+        }
+        List<Long> seenBackwards = new ArrayList<>();
+        while (page.hasNewer()) {
+            page = orderService.findOrderHistory(customer, page.getNewerCursor(), 4);
+            seenBackwards.addAll(0, page.getOrders().stream().map(Order::getId).toList());
+        }
+
+        // Assert
+        assertEquals(newestFirst, seen);
+        assertEquals(newestFirst.subList(0, newestFirst.size() - 2), seenBackwards);
+        assertTrue(page.getOrders().stream().allMatch(order -> order.getSnapshot().getItems().size() == 2));
+    }
+
+    // Saves an order with two lines and backdates it
+    private Long place(OrderStatus status, int daysAgo) {
+        Order order = new Order(customer, Money.of("40.00"), "1 Main St", "Halifax", "B3H");
+        order.setStatus(status);
+        order.setRolledUp(true);
+        order.addOrderItem(new OrderItem(order, ball, 1, Money.of(ball.getPrice())));
+        order.addOrderItem(new OrderItem(order, ball, 1, Money.of(ball.getPrice())));
+        order.setSnapshot(OrderSnapshot.of(order.getOrderItems()));
+        entityManager.persist(order);
+        entityManager.flush();
+        entityManager.createQuery("UPDATE Order o SET o.orderDate = :date WHERE o.id = :id")
+                .setParameter("date", LocalDateTime.now().minusDays(daysAgo))
+                .setParameter("id", order.getId())
+                .executeUpdate();
+        return order.getId();
+    }
+}
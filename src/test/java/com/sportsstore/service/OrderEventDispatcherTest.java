@@ -0,0 +1,191 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.OrderEvent;
+import com.sportsstore.repository.OrderEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The dispatcher commits its own transactions, so the test must not wrap it in one;
+// polling is pushed out of the way so only the test calls dispatch()
+@DataJpaTest(properties = {
+        "store.outbox.batch-size=5",
+        "store.outbox.max-attempts=3",
+        "store.outbox.initial-backoff=PT0S",
+        "store.outbox.poll-interval=PT1H",
+        "store.outbox.purge-batch-size=5",
+        "store.outbox.purge-interval=PT1H"
+})
+@Import({OrderEventDispatcher.class, OrderEventDispatcherTest.Handlers.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderEventDispatcherTest {
+
+    @Autowired
+    private OrderEventDispatcher dispatcher;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private RecordingHandler handler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        handler.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderEventRepository.deleteAll();
+    }
+
+    @Test
+    void testDispatch_DeliversEveryPendingEventOnce() {
+        // Arrange: more than one batch
+        for (long orderId = 1; orderId <= 12; orderId++) {
+            orderEventRepository.save(new OrderEvent(OrderEvent.Type.ORDER_PLACED, orderId, 1L));
+        }
+
+        // Act
+        int delivered = dispatcher.dispatch();
+        int deliveredAgain = dispatcher.dispatch();
+
+        // Assert
+        assertEquals(12, delivered);
+        assertEquals(0, deliveredAgain);
+        assertEquals(12, handler.handledOrderIds.size());
+        assertEquals(12, orderEventRepository.countByStatus(OrderEvent.Status.DELIVERED));
+    }
+
+    @Test
+    void testDispatch_RetriesFailuresUntilAttemptsRunOut() {
+        // Arrange
+        OrderEvent flaky = orderEventRepository.save(new OrderEvent(OrderEvent.Type.ORDER_PLACED, 1L, 1L));
+        OrderEvent broken = orderEventRepository.save(new OrderEvent(OrderEvent.Type.ORDER_PLACED, 2L, 1L));
+        handler.failuresLeft.put(1L, 1);
+        handler.failuresLeft.put(2L, Integer.MAX_VALUE);
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            dispatcher.dispatch();
+        }
+
+        // Assert
+        OrderEvent delivered = orderEventRepository.findById(flaky.getId()).orElseThrow();
+        assertEquals(OrderEvent.Status.DELIVERED, delivered.getStatus());
+        assertEquals(1, delivered.getAttempts());
+
+        OrderEvent failed = orderEventRepository.findById(broken.getId()).orElseThrow();
+        assertEquals(OrderEvent.Status.FAILED, failed.getStatus());
+        assertEquals(3, failed.getAttempts());
+        assertEquals("IllegalStateException: Warehouse unavailable", failed.getLastError());
+    }
+
+    @Test
+    void testDispatch_RedeliversEventsWhoseLeaseRanOut() {
+        // Arrange: another dispatcher claimed the event and then stopped before delivering it
+        OrderEvent event = orderEventRepository.save(new OrderEvent(OrderEvent.Type.ORDER_PLACED, 1L, 1L));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> orderEventRepository
+                .findDueForUpdate(OrderEvent.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, 1))
+                .forEach(claimed -> claimed.setNextAttemptAt(LocalDateTime.now().plusMinutes(5))));
+
+        // Act
+        int deliveredDuringLease = dispatcher.dispatch();
+        transactionTemplate.executeWithoutResult(status -> orderEventRepository.findById(event.getId())
+                .orElseThrow().setNextAttemptAt(LocalDateTime.now().minusSeconds(1)));
+        int deliveredAfterLease = dispatcher.dispatch();
+
+        // Assert
+        assertEquals(0, deliveredDuringLease);
+        assertEquals(1, deliveredAfterLease);
+        assertEquals(Set.of(1L), handler.handledOrderIds);
+    }
+
+    @Test
+    void testPurgeDelivered_DeletesOnlyEventsDeliveredLongAgo() {
+        // Arrange: twelve delivered events, seven of them two days ago, and one that failed long ago
+        for (long orderId = 1; orderId <= 12; orderId++) {
+            orderEventRepository.save(new OrderEvent(OrderEvent.Type.ORDER_PLACED, orderId, 1L));
+        }
+        dispatcher.dispatch();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> orderEventRepository.findAll().stream()
+                .filter(event -> event.getOrderId() <= 7)
+                .forEach(event -> event.setDeliveredAt(LocalDateTime.now().minusDays(2))));
+        OrderEvent failed = new OrderEvent(OrderEvent.Type.ORDER_PLACED, 13L, 1L);
+        failed.setStatus(OrderEvent.Status.FAILED);
+        orderEventRepository.save(failed);
+
+        // Act
+        int purged = dispatcher.purgeDelivered();
+        int purgedAgain = dispatcher.purgeDelivered();
+
+        // Assert
+        assertEquals(7, purged);
+        assertEquals(0, purgedAgain);
+        assertEquals(5, orderEventRepository.countByStatus(OrderEvent.Status.DELIVERED));
+        assertEquals(1, orderEventRepository.countByStatus(OrderEvent.Status.FAILED));
+    }
+
+    @Test
+    void testBackoff_DoublesUpToMaximum() {
+        OrderEventDispatcher withBackoff = new OrderEventDispatcher(orderEventRepository, List.of(), transactionManager,
+                5, 1, 8, Duration.ofMinutes(5), Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofDays(1), 5);
+
+        assertEquals(Duration.ofSeconds(1), withBackoff.backoff(1));
+        assertEquals(Duration.ofSeconds(8), withBackoff.backoff(4));
+        assertEquals(Duration.ofSeconds(10), withBackoff.backoff(5));
+        withBackoff.shutdown();
+    }
+
+    @TestConfiguration
+    static class Handlers {
+
+        @Bean
+        RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+    }
+
+    static class RecordingHandler implements OrderEventHandler {
+
+        final Set<Long> handledOrderIds = ConcurrentHashMap.newKeySet();
+        final ConcurrentHashMap<Long, Integer> failuresLeft = new ConcurrentHashMap<>();
+
+        @Override
+        public void handle(OrderEvent event) {
+            if (failuresLeft.getOrDefault(event.getOrderId(), 0) > 0) {
+                failuresLeft.merge(event.getOrderId(), -1, Integer::sum);
+                throw new IllegalStateException("Warehouse unavailable");
+            }
+            handledOrderIds.add(event.getOrderId());
+        }
+
+        void reset() {
+            handledOrderIds.clear();
+            failuresLeft.clear();
+        }
+    }
+}
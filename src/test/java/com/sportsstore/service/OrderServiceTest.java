@@ -0,0 +1,251 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CartItem;
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Money;
+import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderItem;
+import com.sportsstore.model.OrderSnapshot;
+import com.sportsstore.model.OrderStatus;
+import com.sportsstore.model.Product;
+import com.sportsstore.model.User;
+import com.sportsstore.repository.ArchivedOrderRepository;
+import com.sportsstore.repository.CategoryRepository;
+import com.sportsstore.repository.DailyProductSalesRepository;
+import com.sportsstore.repository.OrderEventRepository;
+import com.sportsstore.repository.OrderRepository;
+import com.sportsstore.repository.OrderStatusCountRepository;
+import com.sportsstore.repository.ProductRepository;
+import com.sportsstore.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+// Bulk status changes commit batch by batch, so the test must not wrap them in a transaction
+@DataJpaTest(properties = "store.orders.status-batch-size=4")
+@Import({OrderService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderStatusCountRepository orderStatusCountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private DailyProductSalesRepository dailyProductSalesRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private CartService cartService;
+
+    @MockBean
+    private InventoryReservationService inventoryReservationService;
+
+    @MockBean
+    private CatalogService catalogService;
+
+    private User customer;
+    private List<Long> confirmedIds;
+    private Long deliveredId;
+
+    @BeforeEach
+    void setUp() {
+        customer = userRepository.save(new User("status-customer", "status@example.com", "secret"));
+        confirmedIds = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 10; i++) {
+                confirmedIds.add(place(OrderStatus.CONFIRMED).getId());
+            }
+            deliveredId = place(OrderStatus.DELIVERED).getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_items_archive");
+        jdbcTemplate.update("DELETE FROM orders_archive");
+        orderEventRepository.deleteAll();
+        orderRepository.deleteAll();
+        orderStatusCountRepository.deleteAll();
+        dailyProductSalesRepository.deleteAll();
+        productRepository.deleteAll(productRepository.findAll().stream()
+                .filter(product -> product.getName().startsWith("Snapshot")).toList());
+        categoryRepository.findByName("Snapshot Category").ifPresent(categoryRepository::delete);
+        userRepository.delete(customer);
+    }
+
+    @Test
+    void testUpdateOrderStatuses_ReportsOutcomeForEveryId() {
+        // Arrange: a manifest spanning several batches, with a repeat, an unknown id and a delivered order
+        List<Long> manifest = new ArrayList<>(confirmedIds.subList(0, 9));
+        manifest.add(confirmedIds.get(0));
+        manifest.add(deliveredId);
+        manifest.add(999_999L);
+
+        // Act
+        OrderStatusChange change = orderService.updateOrderStatuses(manifest, OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+
+        // Assert
+        assertEquals(confirmedIds.subList(0, 9), change.getMoved());
+        assertEquals(Map.of(deliveredId, OrderStatus.DELIVERED), change.getSkipped());
+        assertEquals(List.of(999_999L), change.getNotFound());
+        assertTrue(change.getFailed().isEmpty());
+        assertEquals(11, change.getRequested());
+
+        assertEquals(9, orderRepository.findByStatus(OrderStatus.SHIPPED).size());
+        assertEquals(1, orderRepository.findByStatus(OrderStatus.CONFIRMED).size());
+        assertEquals(Map.of(OrderStatus.CONFIRMED, 1L, OrderStatus.SHIPPED, 9L, OrderStatus.DELIVERED, 1L),
+                salesRollupService.getDashboard().getOrderCounts());
+    }
+
+    @Test
+    void testUpdateOrderStatuses_RepeatedManifestMovesNothing() {
+        // Arrange
+        orderService.updateOrderStatuses(confirmedIds, OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+
+        // Act
+        OrderStatusChange again = orderService.updateOrderStatuses(confirmedIds, OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+
+        // Assert
+        assertTrue(again.getMoved().isEmpty());
+        assertEquals(10, again.getSkipped().size());
+        assertEquals(Map.of(OrderStatus.SHIPPED, 10L, OrderStatus.DELIVERED, 1L),
+                salesRollupService.getDashboard().getOrderCounts());
+    }
+
+    @Test
+    void testUpdateOrderStatuses_RejectsIllegalTransition() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.updateOrderStatuses(confirmedIds, OrderStatus.CONFIRMED, OrderStatus.DELIVERED));
+        assertEquals(10, orderRepository.findByStatus(OrderStatus.CONFIRMED).size());
+    }
+
+    @Test
+    void testUpdateOrderStatus_FollowsStateMachine() {
+        // Act
+        orderService.updateOrderStatus(confirmedIds.get(0), OrderStatus.CANCELLED);
+
+        // Assert
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(confirmedIds.get(0)).orElseThrow().getStatus());
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> orderService.updateOrderStatus(confirmedIds.get(0), OrderStatus.SHIPPED));
+        assertEquals("Order #" + confirmedIds.get(0) + " cannot move from CANCELLED to SHIPPED", exception.getMessage());
+    }
+
+    @Test
+    void testCreateOrder_StoresSnapshotOfItems() {
+        // Arrange
+        Category category = categoryRepository.save(new Category("Snapshot Category", "Test category"));
+        Product ball = productRepository.save(new Product("Snapshot Ball", "Test product", new BigDecimal("20.00"), null, 50, category));
+        List<CartItem> cart = List.of(new CartItem(ball, 3, customer));
+        when(cartService.getQuantitiesByProduct(cart)).thenReturn(Map.of(ball.getId(), 3));
+        when(cartService.calculateTotal(cart)).thenReturn(Money.of("60.00"));
+        Long orderId = orderService.createOrder(customer, cart, "1 Main St", "Halifax", "B3H", null).getId();
+
+        // Act: the product changes after the order is placed
+        ball.setName("Snapshot Ball Renamed");
+        ball.setPrice(new BigDecimal("25.00"));
+        productRepository.save(ball);
+        Order order = orderService.findPlacedOrder(orderId, customer.getUsername()).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(new OrderSnapshot.Item(ball.getId(), "Snapshot Ball", new BigDecimal("20.00"), 3)),
+                order.getSnapshot().getItems());
+        assertEquals(0, new BigDecimal("60.00").compareTo(order.getSnapshot().getItems().get(0).subtotal()));
+    }
+
+    @Test
+    void testBackfillSnapshots_FillsLiveAndArchivedOrdersWithoutOne() {
+        // Arrange: orders from before snapshots, one of them archived since
+        Category category = categoryRepository.save(new Category("Snapshot Category", "Test category"));
+        Product ball = productRepository.save(new Product("Snapshot Ball", "Test product", new BigDecimal("20.00"), null, 50, category));
+        Long liveId = placeWithItem(ball);
+        Long archivedId = placeWithItem(ball);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE id = ?", archivedId);
+            archivedOrderRepository.archiveOrders(List.of(OrderStatus.CANCELLED), LocalDateTime.now().plusDays(1), 10);
+        });
+        jdbcTemplate.update("UPDATE orders SET snapshot = NULL");
+        jdbcTemplate.update("UPDATE orders_archive SET snapshot = NULL");
+
+        // Act
+        int filled = orderService.backfillSnapshots();
+        int filledAgain = orderService.backfillSnapshots();
+
+        // Assert: every order from setUp was missing one too
+        assertEquals(confirmedIds.size() + 3, filled);
+        assertEquals(0, filledAgain);
+        for (Long id : List.of(liveId, archivedId)) {
+            OrderSnapshot snapshot = orderService.findPlacedOrder(id, "status-customer").orElseThrow().getSnapshot();
+            assertEquals(List.of(new OrderSnapshot.Item(ball.getId(), "Snapshot Ball", new BigDecimal("20.00"), 2)),
+                    snapshot.getItems());
+        }
+    }
+
+    private Long placeWithItem(Product product) {
+        Order order = new Order(customer, Money.of("40.00"), "1 Main St", "Halifax", "B3H");
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setRolledUp(true);
+        order.addOrderItem(new OrderItem(order, product, 2, Money.of(product.getPrice())));
+        return orderRepository.save(order).getId();
+    }
+
+    // Saves an order and counts it as OrderService.createOrder would
+    private Order place(OrderStatus status) {
+        Order order = new Order(customer, Money.of("10.00"), "1 Main St", "Halifax", "B3H");
+        order.setStatus(status);
+        order.setRolledUp(true);
+        Order saved = orderRepository.save(order);
+        salesRollupService.recordOrderPlaced(saved);
+        return saved;
+    }
+}
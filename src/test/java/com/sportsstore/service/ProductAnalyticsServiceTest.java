@@ -0,0 +1,146 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.repository.OrderLineRepository.OrderLine;
+import com.sportsstore.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ProductAnalyticsServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CatalogService catalogService;
+
+    private final List<OrderLine> history = new ArrayList<>();
+    private ProductAnalyticsService analytics;
+
+    @BeforeEach
+    void setUp() {
+        // Products 1..5, all in stock except product 5
+        CatalogCategory category = new CatalogCategory(1L, "Basketball", "Basketball equipment");
+        List<CatalogProduct> products = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            products.add(new CatalogProduct(id, 1, "Product " + id, "Test product", new BigDecimal("10.00"), null,
+                    category, false, new AtomicInteger(id == 5 ? 0 : 10)));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, Collections.singletonList(category), products);
+        lenient().when(catalogService.findProduct(anyLong()))
+                .thenAnswer(invocation -> snapshot.findProduct(invocation.getArgument(0, Long.class)));
+
+        doAnswer(invocation -> {
+            Consumer<OrderLine> consumer = invocation.getArgument(0);
+            history.forEach(consumer);
+            return null;
+        }).when(orderRepository).forEachOrderLine(any());
+
+        analytics = new ProductAnalyticsService(orderRepository, catalogService,
+                Duration.ofHours(2), Duration.ofHours(1), 3);
+    }
+
+    @Test
+    void testRebuild_CountsRecentSalesAndAllCoPurchases() {
+        // Arrange: an old order only counts towards co-purchases
+        LocalDateTime now = LocalDateTime.now();
+        addOrder(1, now.minusDays(30), 1, 9, 2, 9);
+        addOrder(2, now, 1, 2, 3, 1);
+        addOrder(3, now, 2, 1, 3, 1, 4, 1);
+
+        // Act
+        analytics.rebuild();
+
+        // Assert
+        assertArrayEquals(new long[]{1, 3, 2}, analytics.getBestSellerIds());
+        assertArrayEquals(new long[]{2, 3}, analytics.getBoughtTogetherIds(1));
+        assertArrayEquals(new long[]{1, 3, 4}, analytics.getBoughtTogetherIds(2));
+        assertArrayEquals(new long[0], analytics.getBoughtTogetherIds(99));
+    }
+
+    @Test
+    void testOrderPlaced_UpdatesRankingsAndVersion() {
+        // Arrange
+        analytics.rebuild();
+        String version = analytics.getVersion(4);
+
+        // Act
+        analytics.onOrderPlaced(order(10, LocalDateTime.now(), 4, 3, 5, 1));
+        analytics.onOrderPlaced(order(11, LocalDateTime.now(), 4, 1, 5, 1, 1, 1));
+
+        // Assert
+        assertArrayEquals(new long[]{4, 5, 1}, analytics.getBestSellerIds());
+        assertArrayEquals(new long[]{5, 1}, analytics.getBoughtTogetherIds(4));
+        assertNotEquals(version, analytics.getVersion(4));
+        // Out-of-stock products are left off the page
+        assertEquals(List.of(1L), analytics.getBoughtTogether(4).stream().map(CatalogProduct::getId).toList());
+        assertEquals(List.of(4L, 1L), analytics.getBestSellers().stream().map(CatalogProduct::getId).toList());
+    }
+
+    @Test
+    void testOrderPlaced_VersionKeptWhenListsDoNotChange() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        addOrder(1, now, 1, 9, 2, 1);
+        addOrder(2, now, 3, 4, 4, 3);
+        analytics.rebuild();
+        String productOne = analytics.getVersion(1);
+        String productThree = analytics.getVersion(3);
+
+        // Act: another sale that keeps the rankings and product 1's list as they were
+        analytics.onOrderPlaced(order(10, now, 3, 1, 4, 1));
+
+        // Assert
+        assertEquals(productOne, analytics.getVersion(1));
+        assertEquals(productThree, analytics.getVersion(3));
+    }
+
+    @Test
+    void testOrderPlaced_SalesLeaveTheWindow() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        analytics.rebuild();
+        analytics.onOrderPlaced(order(10, now, 1, 5));
+
+        // Act: the next order comes in after the two-hour window has moved past the first
+        analytics.onOrderPlaced(order(11, now.plusHours(3), 2, 1));
+
+        // Assert
+        assertArrayEquals(new long[]{2}, analytics.getBestSellerIds());
+    }
+
+    // Alternating product ids and quantities
+    private void addOrder(long orderId, LocalDateTime orderDate, long... productsAndQuantities) {
+        for (int i = 0; i < productsAndQuantities.length; i += 2) {
+            history.add(new OrderLine(orderId, orderDate, productsAndQuantities[i], (int) productsAndQuantities[i + 1]));
+        }
+    }
+
+    private static OrderPlacedEvent order(long orderId, LocalDateTime orderDate, long... productsAndQuantities) {
+        List<OrderPlacedEvent.Line> lines = new ArrayList<>();
+        for (int i = 0; i < productsAndQuantities.length; i += 2) {
+            lines.add(new OrderPlacedEvent.Line(productsAndQuantities[i], (int) productsAndQuantities[i + 1], BigDecimal.TEN));
+        }
+        return new OrderPlacedEvent(orderId, 1L, orderDate, BigDecimal.TEN, lines);
+    }
+}
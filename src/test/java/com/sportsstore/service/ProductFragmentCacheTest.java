@@ -0,0 +1,137 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class ProductFragmentCacheTest {
+
+    private CatalogCategory category;
+    private ProductFragmentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        category = new CatalogCategory(1L, "Basketball", "Basketball equipment");
+        cache = new ProductFragmentCache(templateEngine, 3);
+    }
+
+    @Test
+    void testCardBody_RendersProductAndReusesIt() {
+        // Arrange
+        CatalogProduct product = product(1L, 1, "Hoop <Pro>", 50);
+
+        // Act
+        String first = cache.cardBody(product);
+        String second = cache.cardBody(product);
+
+        // Assert
+        assertTrue(first.contains("Hoop &lt;Pro&gt;"));
+        assertTrue(first.contains("$89.99"));
+        assertTrue(first.contains("In Stock"));
+        assertFalse(first.contains("<form"));
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testCardBody_RerendersWhenVersionOrLowStockChanges() {
+        // Arrange
+        AtomicInteger stock = new AtomicInteger(50);
+        CatalogProduct product = new CatalogProduct(1L, 1, "Hoop", "A hoop", new BigDecimal("89.99"), null,
+                category, false, stock);
+        String plenty = cache.cardBody(product);
+
+        // Act
+        stock.set(40);
+        String stillPlenty = cache.cardBody(product);
+        stock.set(3);
+        String low = cache.cardBody(product);
+        String renamed = cache.cardBody(product(1L, 2, "Hoop Deluxe", 50));
+
+        // Assert
+        assertSame(plenty, stillPlenty);
+        assertTrue(low.contains("Only <span>3</span> left"));
+        assertTrue(renamed.contains("Hoop Deluxe"));
+    }
+
+    @Test
+    void testCardBody_RendersTheStockItIsKeyedBy() {
+        // Arrange: a checkout restocks the product right after the cache reads the counter
+        CatalogProduct product = spy(product(1L, 1, "Hoop", 3));
+        when(product.getStockQuantity()).thenReturn(3, 50);
+
+        // Act
+        String low = cache.cardBody(product);
+
+        // Assert
+        assertTrue(low.contains("Only <span>3</span> left"));
+        assertFalse(low.contains("In Stock"));
+        assertTrue(cache.cardBody(product).contains("In Stock"));
+    }
+
+    @Test
+    void testDetailSummary_RendersDescription() {
+        // Act
+        String html = cache.detailSummary(product(1L, 1, "Hoop", 0));
+
+        // Assert
+        assertTrue(html.contains("<h2>Hoop</h2>"));
+        assertTrue(html.contains("A hoop"));
+        assertTrue(html.contains("Out of Stock"));
+    }
+
+    @Test
+    void testSize_EvictsLeastRecentlyUsed() {
+        // Arrange
+        String first = cache.featuredCardBody(product(1L, 1, "One", 5));
+        cache.featuredCardBody(product(2L, 1, "Two", 5));
+        cache.featuredCardBody(product(3L, 1, "Three", 5));
+        cache.featuredCardBody(product(1L, 1, "One", 5));
+
+        // Act
+        cache.featuredCardBody(product(4L, 1, "Four", 5));
+
+        // Assert
+        assertEquals(3, cache.size());
+        assertSame(first, cache.featuredCardBody(product(1L, 1, "One", 5)));
+    }
+
+    @Test
+    void testOnProductChanged_DropsSavedProduct() {
+        // Arrange
+        cache.cardBody(product(1L, 1, "One", 5));
+        cache.detailSummary(product(1L, 1, "One", 5));
+        cache.cardBody(product(2L, 1, "Two", 5));
+        Product saved = new Product("One", "Updated", new BigDecimal("89.99"), null, 5, new Category());
+        saved.setId(1L);
+
+        // Act
+        cache.onProductChanged(ProductChangedEvent.saved(saved));
+
+        // Assert
+        assertEquals(1, cache.size());
+    }
+
+    private CatalogProduct product(long id, long version, String name, int stock) {
+        return new CatalogProduct(id, version, name, "A hoop", new BigDecimal("89.99"), null,
+                category, false, new AtomicInteger(stock));
+    }
+}
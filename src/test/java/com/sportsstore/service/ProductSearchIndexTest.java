@@ -0,0 +1,174 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.rebuild(Arrays.asList(
+                product(1L, "Spalding NBA Official Basketball", "Official NBA game basketball with superior grip"),
+                product(2L, "Nike Basketball Shoes Pro", "High-performance shoes with excellent ankle support"),
+                product(3L, "Basketball Training Jersey", "Moisture-wicking jersey for intense training"),
+                product(4L, "Nike Air Zoom Running Shoes", "Cushioned running shoes for long-distance comfort"),
+                product(5L, "Yoga Mat Premium", "Extra-thick mat, great for basketball warmups")
+        ));
+    }
+
+    @Test
+    void testSearch_RanksNameMatchesAboveDescriptionMatches() {
+        // Act
+        List<Long> results = index.search("basketball", 10);
+
+        // Assert
+        assertEquals(4, results.size());
+        assertEquals(5L, results.get(results.size() - 1));
+    }
+
+    @Test
+    void testSearch_RequiresEveryTerm() {
+        // Act
+        List<Long> results = index.search("nike shoes", 10);
+
+        // Assert
+        assertEquals(2, results.size());
+        assertTrue(results.containsAll(Arrays.asList(2L, 4L)));
+    }
+
+    @Test
+    void testSearch_MatchesPrefixes() {
+        // Act
+        List<Long> results = index.search("Bask", 10);
+
+        // Assert
+        assertEquals(4, results.size());
+    }
+
+    @Test
+    void testSearch_MatchesInsideWords() {
+        // Arrange
+        index.index(product(6L, "Adidas Soccer Ball Pro", "FIFA-approved match ball"));
+
+        // Act
+        List<Long> results = index.search("ball", 10);
+
+        // Assert
+        assertEquals(5, results.size());
+        assertEquals(6L, results.get(0));
+        assertTrue(results.containsAll(Arrays.asList(1L, 2L, 3L, 5L)));
+        assertEquals(2, index.search("hoe", 10).size());
+        assertTrue(index.search("hoe", 10).containsAll(Arrays.asList(2L, 4L)));
+    }
+
+    @Test
+    void testSearch_RespectsLimit() {
+        // Act
+        List<Long> results = index.search("basketball", 2);
+
+        // Assert
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    void testSearch_NoMatch() {
+        assertTrue(index.search("hockey", 10).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    @Test
+    void testSearch_ToleratesTypos() {
+        // Act & Assert
+        assertEquals(List.of(1L), index.search("spaldng", 10));
+        assertEquals(List.of(1L), index.search("splading", 10));
+        assertEquals(List.of(4L), index.search("runing shoes", 10));
+        assertEquals(4, index.search("baskteball", 10).size());
+    }
+
+    @Test
+    void testSearch_ToleratesTranspositions() {
+        // Arrange: swapping "c" and "e" leaves only two of the six trigrams of "soccer"
+        index.index(product(6L, "Adidas Soccer Ball", "Match ball"));
+
+        // Act & Assert
+        assertEquals(List.of(6L), index.search("socecr", 10));
+        assertEquals(List.of(6L), index.search("scocer", 10));
+    }
+
+    @Test
+    void testSearch_ListsExactMatchesBeforeFuzzyMatches() {
+        // Arrange
+        index.index(product(6L, "Adidas Soccer Ball", "Match ball"));
+        index.index(product(7L, "Adiddas Knockoff Ball", "Practice ball"));
+
+        // Act
+        List<Long> results = index.search("adiddas", 10);
+
+        // Assert
+        assertEquals(List.of(7L, 6L), results);
+    }
+
+    @Test
+    void testSearch_SkipsFuzzyMatchingWhenExactResultsSuffice() {
+        // Arrange
+        index.index(product(6L, "Basketbull Novelty Trophy", "Desk trophy"));
+
+        // Act & Assert
+        assertFalse(index.search("basketball", 10).contains(6L));
+        assertTrue(index.search("basketbull", 10).contains(6L));
+    }
+
+    @Test
+    void testSearch_FuzzyMatchesFollowUpdates() {
+        // Act
+        index.delete(1L);
+
+        // Assert
+        assertTrue(index.search("spaldng", 10).isEmpty());
+    }
+
+    @Test
+    void testEditDistance() {
+        assertEquals(0, ProductSearchIndex.editDistance("nike", "nike", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("adiddas", "adidas", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("mercurail", "mercurial", 2));
+        assertEquals(3, ProductSearchIndex.editDistance("yoga", "basketball", 2));
+    }
+
+    @Test
+    void testIndex_ReplacesExistingDocument() {
+        // Act
+        index.index(product(5L, "Yoga Mat Premium", "Extra-thick mat with non-slip surface"));
+
+        // Assert
+        assertEquals(5, index.size());
+        assertFalse(index.search("basketball", 10).contains(5L));
+        assertEquals(List.of(5L), index.search("non-slip", 10));
+    }
+
+    @Test
+    void testDelete_RemovesDocument() {
+        // Act
+        index.delete(2L);
+
+        // Assert
+        assertEquals(4, index.size());
+        assertEquals(List.of(4L), index.search("shoes", 10));
+    }
+
+    private Product product(Long id, String name, String description) {
+        Product product = new Product(name, description, new BigDecimal("10.00"), null, 10, null);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,173 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.Category;
+import com.sportsstore.model.Money;
+import com.sportsstore.model.Order;
+import com.sportsstore.model.OrderItem;
+import com.sportsstore.model.OrderStatus;
+import com.sportsstore.model.Product;
+import com.sportsstore.model.User;
+import com.sportsstore.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {"store.dashboard.days=7", "store.dashboard.top-products=2", "store.dashboard.backfill-batch-size=2"})
+@Import(SalesRollupService.class)
+class SalesRollupServiceTest {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private CatalogService catalogService;
+
+    private User customer;
+    private Category balls;
+    private Category shoes;
+    private Product ball;
+    private Product pump;
+    private Product shoe;
+
+    @BeforeEach
+    void setUp() {
+        customer = new User("rollup-customer", "rollup@example.com", "secret");
+        entityManager.persist(customer);
+        balls = new Category("Rollup Balls", "Test category");
+        shoes = new Category("Rollup Shoes", "Test category");
+        entityManager.persist(balls);
+        entityManager.persist(shoes);
+        ball = new Product("Rollup Ball", "Test product", new BigDecimal("20.00"), null, 50, balls);
+        pump = new Product("Rollup Pump", "Test product", new BigDecimal("5.00"), null, 50, balls);
+        shoe = new Product("Rollup Shoe", "Test product", new BigDecimal("100.00"), null, 50, shoes);
+        entityManager.persist(ball);
+        entityManager.persist(pump);
+        entityManager.persist(shoe);
+
+        when(catalogService.getCategories()).thenReturn(List.of(
+                new CatalogCategory(balls.getId(), "Balls", null),
+                new CatalogCategory(shoes.getId(), "Shoes", null)));
+        when(catalogService.findProduct(anyLong())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testRecordOrderPlaced_AddsToCountsAndSales() {
+        // Act
+        place(true, OrderStatus.CONFIRMED, Map.of(ball, 2, pump, 1));
+        place(true, OrderStatus.CONFIRMED, Map.of(ball, 1, shoe, 1));
+        SalesDashboard dashboard = salesRollupService.getDashboard();
+
+        // Assert
+        assertEquals(Map.of(OrderStatus.CONFIRMED, 2L), dashboard.getOrderCounts());
+        assertEquals(7, dashboard.getDays().size());
+        SalesDashboard.Day today = dashboard.getDays().get(6);
+        assertEquals(LocalDate.now(), today.date());
+        assertEquals(5, today.units());
+        assertEquals(0, new BigDecimal("165.00").compareTo(today.revenue()));
+        assertEquals(0, new BigDecimal("165.00").compareTo(dashboard.getTotalRevenue()));
+
+        assertEquals(List.of("Shoes", "Balls"), dashboard.getCategories().stream().map(SalesDashboard.Row::name).toList());
+        assertEquals(4, dashboard.getCategories().get(1).units());
+        assertEquals(List.of("Product #" + ball.getId(), "Product #" + pump.getId()),
+                dashboard.getTopProducts().stream().map(SalesDashboard.Row::name).toList());
+        assertEquals(3, dashboard.getTopProducts().get(0).units());
+    }
+
+    @Test
+    void testRecordStatusChange_MovesOrderBetweenCounts() {
+        // Arrange
+        Order order = place(true, OrderStatus.CONFIRMED, Map.of(ball, 1));
+        place(true, OrderStatus.CONFIRMED, Map.of(ball, 1));
+
+        // Act
+        order.setStatus(OrderStatus.SHIPPED);
+        salesRollupService.recordStatusChange(order, OrderStatus.CONFIRMED);
+
+        // Assert
+        assertEquals(Map.of(OrderStatus.CONFIRMED, 1L, OrderStatus.SHIPPED, 1L), salesRollupService.getDashboard().getOrderCounts());
+    }
+
+    @Test
+    void testRecordStatusChange_CancellationTakesSalesBackOut() {
+        // Arrange
+        Order order = place(true, OrderStatus.CONFIRMED, Map.of(ball, 2, shoe, 1));
+        place(true, OrderStatus.CONFIRMED, Map.of(ball, 1));
+
+        // Act
+        order.setStatus(OrderStatus.CANCELLED);
+        salesRollupService.recordStatusChange(order, OrderStatus.CONFIRMED);
+        SalesDashboard dashboard = salesRollupService.getDashboard();
+
+        // Assert
+        assertEquals(Map.of(OrderStatus.CONFIRMED, 1L, OrderStatus.CANCELLED, 1L), dashboard.getOrderCounts());
+        assertEquals(1, dashboard.getDays().get(6).units());
+        assertEquals(0, new BigDecimal("20.00").compareTo(dashboard.getTotalRevenue()));
+        assertEquals(List.of("Balls"), dashboard.getCategories().stream().map(SalesDashboard.Row::name).toList());
+        assertEquals(List.of("Product #" + ball.getId()),
+                dashboard.getTopProducts().stream().map(SalesDashboard.Row::name).toList());
+    }
+
+    @Test
+    void testBackfill_CountsEachEarlierOrderOnce() {
+        // Arrange: orders from before the rollups, one already counted, and one that changed status meanwhile
+        for (int i = 0; i < 4; i++) {
+            place(false, OrderStatus.CONFIRMED, Map.of(ball, 1));
+        }
+        place(true, OrderStatus.CONFIRMED, Map.of(shoe, 1));
+        Order shipped = place(false, OrderStatus.CONFIRMED, Map.of(pump, 2));
+        shipped.setStatus(OrderStatus.SHIPPED);
+        salesRollupService.recordStatusChange(shipped, OrderStatus.CONFIRMED);
+        place(false, OrderStatus.CANCELLED, Map.of(shoe, 3));
+
+        // Act
+        int counted = salesRollupService.backfill();
+        int countedAgain = salesRollupService.backfill();
+
+        // Assert
+        assertEquals(6, counted);
+        assertEquals(0, countedAgain);
+        assertTrue(orderRepository.findAll().stream().allMatch(Order::isRolledUp));
+
+        SalesDashboard dashboard = salesRollupService.getDashboard();
+        assertEquals(Map.of(OrderStatus.CONFIRMED, 5L, OrderStatus.SHIPPED, 1L, OrderStatus.CANCELLED, 1L),
+                dashboard.getOrderCounts());
+        assertEquals(7, dashboard.getDays().get(6).units());
+        assertEquals(0, new BigDecimal("190.00").compareTo(dashboard.getTotalRevenue()));
+    }
+
+    // Saves an order as OrderService would; orders that are not rolled up stand for ones placed before the rollups
+    private Order place(boolean rolledUp, OrderStatus status, Map<Product, Integer> quantities) {
+        Order order = new Order(customer, Money.zero(), "1 Main St", "Halifax", "B3H");
+        order.setStatus(status);
+        order.setRolledUp(rolledUp);
+        quantities.forEach((product, quantity) ->
+                order.addOrderItem(new OrderItem(order, product, quantity, Money.of(product.getPrice()))));
+        entityManager.persist(order);
+        entityManager.flush();
+        if (rolledUp) {
+            salesRollupService.recordOrderPlaced(order);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,159 @@
+package com.sportsstore.service;
+
+import com.sportsstore.model.CatalogCategory;
+import com.sportsstore.model.CatalogProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestionIndexTest {
+
+    @Mock
+    private CatalogService catalogService;
+
+    @Mock
+    private FeaturedProductService featuredProductService;
+
+    private SuggestionIndex suggestionIndex;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        CatalogCategory basketball = new CatalogCategory(1L, "Basketball", "Basketball equipment");
+        CatalogCategory running = new CatalogCategory(2L, "Running", "Running gear");
+        snapshot = CatalogSnapshot.of(1, Arrays.asList(basketball, running), Arrays.asList(
+                product(1L, "Spalding NBA Official Basketball", basketball),
+                product(2L, "Basketball Hoop Portable", basketball),
+                product(3L, "Nike Air Zoom Running Shoes", running),
+                product(4L, "Running Hydration Belt", running)
+        ));
+
+        suggestionIndex = new SuggestionIndex(catalogService, featuredProductService);
+    }
+
+    @Test
+    void testSuggest_CompletesAnyWordOfTheName() {
+        // Arrange
+        when(featuredProductService.getRecentSales()).thenReturn(Map.of());
+        suggestionIndex.rebuild(snapshot);
+
+        // Act
+        List<String> results = texts(suggestionIndex.suggest("Bask"));
+
+        // Assert
+        assertEquals(Arrays.asList("Basketball", "Basketball Hoop Portable", "Spalding NBA Official Basketball"), results);
+        assertEquals(List.of("Nike Air Zoom Running Shoes"), texts(suggestionIndex.suggest("air z")));
+    }
+
+    @Test
+    void testSuggest_RanksByRecentSales() {
+        // Arrange
+        when(featuredProductService.getRecentSales()).thenReturn(Map.of(4L, 3.0, 1L, 1.0));
+        suggestionIndex.rebuild(snapshot);
+
+        // Act
+        List<Suggestion> results = suggestionIndex.suggest("run");
+
+        // Assert
+        assertEquals(Arrays.asList("Running", "Running Hydration Belt", "Nike Air Zoom Running Shoes"), texts(results));
+        assertEquals(Suggestion.Type.CATEGORY, results.get(0).type());
+        assertEquals(2L, results.get(0).id());
+    }
+
+    @Test
+    void testSuggest_ReturnsAtMostTenSuggestions() {
+        // Arrange
+        CatalogCategory category = new CatalogCategory(1L, "Balls", "Balls");
+        List<CatalogProduct> products = new ArrayList<>();
+        for (long id = 1; id <= 25; id++) {
+            products.add(product(id, "Ball " + id, category));
+        }
+        when(featuredProductService.getRecentSales()).thenReturn(Map.of(25L, 1.0));
+        suggestionIndex.rebuild(CatalogSnapshot.of(1, List.of(category), products));
+
+        // Act
+        List<Suggestion> results = suggestionIndex.suggest("ball");
+
+        // Assert
+        assertEquals(SuggestionIndex.MAX_SUGGESTIONS, results.size());
+        assertEquals("Balls", results.get(0).text());
+        assertEquals("Ball 25", results.get(1).text());
+    }
+
+    @Test
+    void testSuggest_QueryLongerThanKeysFindsLowerRankedNames() {
+        // Arrange: more popular names fill the list of the node where keys are cut off
+        CatalogCategory category = new CatalogCategory(1L, "Hoops", "Hoops");
+        List<CatalogProduct> products = new ArrayList<>();
+        Map<Long, Double> sales = new HashMap<>();
+        for (long id = 1; id <= 12; id++) {
+            products.add(product(id, "Professional Basketball Ball " + id, category));
+            sales.put(id, 1.0);
+        }
+        products.add(product(13L, "Professional Basketball Hoop Red", category));
+        products.add(product(14L, "Professional Basketball Hoop Blue", category));
+        when(featuredProductService.getRecentSales()).thenReturn(sales);
+        suggestionIndex.rebuild(CatalogSnapshot.of(1, List.of(category), products));
+
+        // Act
+        List<String> results = texts(suggestionIndex.suggest("Professional Basketball Hoop"));
+
+        // Assert
+        assertEquals(Arrays.asList("Professional Basketball Hoop Blue", "Professional Basketball Hoop Red"), results);
+        assertEquals(SuggestionIndex.MAX_SUGGESTIONS, suggestionIndex.suggest("professional basketball ball").size());
+    }
+
+    @Test
+    void testSuggest_QueryLongerThanKeysOnlyChecksTheCutOffNodesList() {
+        // Arrange: the cut-off node's list is full of more popular names
+        CatalogCategory category = new CatalogCategory(1L, "Hoops", "Hoops");
+        List<CatalogProduct> products = new ArrayList<>();
+        Map<Long, Double> sales = new HashMap<>();
+        for (long id = 1; id <= SuggestionIndex.MAX_LEAF_CANDIDATES; id++) {
+            products.add(product(id, "Professional Basketball Ball " + id, category));
+            sales.put(id, 1.0);
+        }
+        products.add(product(1000L, "Professional Basketball Hoop", category));
+        when(featuredProductService.getRecentSales()).thenReturn(sales);
+        suggestionIndex.rebuild(CatalogSnapshot.of(1, List.of(category), products));
+
+        // Act & Assert: no fallback to scanning every name
+        assertTrue(suggestionIndex.suggest("Professional Basketball Hoop").isEmpty());
+        assertEquals(SuggestionIndex.MAX_SUGGESTIONS, suggestionIndex.suggest("professional basketball").size());
+    }
+
+    @Test
+    void testSuggest_NoMatch() {
+        // Arrange
+        when(featuredProductService.getRecentSales()).thenReturn(Map.of());
+        suggestionIndex.rebuild(snapshot);
+
+        // Act & Assert
+        assertTrue(suggestionIndex.suggest("hockey").isEmpty());
+        assertTrue(suggestionIndex.suggest("  ").isEmpty());
+        assertTrue(suggestionIndex.suggest(null).isEmpty());
+    }
+
+    private List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).collect(Collectors.toList());
+    }
+
+    private CatalogProduct product(long id, String name, CatalogCategory category) {
+        return new CatalogProduct(id, 1, name, "Test product", new BigDecimal("10.00"), null, category, false, new AtomicInteger(5));
+    }
+}